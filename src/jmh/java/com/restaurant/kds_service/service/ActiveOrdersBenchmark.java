@@ -0,0 +1,100 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read path for active orders
+ *
+ * parseActive / diffActive: the old materialize-then-diff path for an Order Service /active payload.
+ * streamActive: the streaming path the poller uses, parsing and diffing one order at a time.
+ * snapshotOrders / serializeOrders: what GET /api/kitchen/orders does per request.
+ * buildSnapshot / writeThrough: the per-change cost paid once by the poller or a status update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ActiveOrdersBenchmark {
+
+    private static final TypeReference<List<KitchenOrderResponse>> ORDER_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10", "100", "1000"})
+    public int orderCount;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private List<KitchenOrderResponse> orders;
+    private byte[] activePayload;
+    private ActiveOrderStore store;
+    private KitchenOrderResponse changed;
+    private KitchenOrderResponse original;
+    private boolean toggle;
+
+    @Setup
+    public void setUp() {
+        orders = BenchmarkOrders.orders(orderCount);
+        activePayload = jsonMapper.writeValueAsBytes(orders);
+        store = new ActiveOrderStore(event -> { }, jsonMapper, Set.of("CREATED", "CONFIRMED", "PREPARING"),
+                Runnable::run);
+        store.apply(store.diff(orders), ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+
+        original = orders.get(orderCount / 2);
+        LocalDateTime createdAt = original.getCreatedAt();
+        changed = BenchmarkOrders.order(original.getId(),
+                "PREPARING".equals(original.getStatus()) ? "CONFIRMED" : "PREPARING", createdAt);
+    }
+
+    @Benchmark
+    public List<KitchenOrderResponse> parseActive() {
+        return jsonMapper.readValue(activePayload, ORDER_LIST);
+    }
+
+    @Benchmark
+    public OrderDiff diffActive() {
+        return store.diff(jsonMapper.readValue(activePayload, ORDER_LIST));
+    }
+
+    @Benchmark
+    public OrderDiff streamActive() {
+        OrderDiff.Builder incoming = store.diffBuilder();
+        ActiveOrdersFetcher.readOrders(new ByteArrayInputStream(activePayload), incoming::accept);
+        return store.diff(incoming, true);
+    }
+
+    @Benchmark
+    public List<KitchenOrderResponse> snapshotOrders() {
+        return store.getSnapshot().getOrders();
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() {
+        return jsonMapper.writeValueAsBytes(store.getSnapshot().getOrders());
+    }
+
+    @Benchmark
+    public OrderSnapshot buildSnapshot() {
+        return OrderSnapshot.build(1, orders, jsonMapper);
+    }
+
+    @Benchmark
+    public OrderSnapshot writeThrough() {
+        toggle = !toggle;
+        store.writeThrough(toggle ? changed : original);
+        return store.getSnapshot();
+    }
+}
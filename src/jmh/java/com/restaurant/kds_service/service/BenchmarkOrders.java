@@ -0,0 +1,40 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic active-order fixtures for the benchmarks
+ */
+final class BenchmarkOrders {
+
+    private static final String[] STATUSES = {"CREATED", "CONFIRMED", "PREPARING"};
+    private static final String[] ITEMS = {"Chicken Pizza", "Caesar Salad", "Cheeseburger", "Pad Thai", "Iced Tea"};
+
+    private BenchmarkOrders() {
+    }
+
+    static List<KitchenOrderResponse> orders(int count) {
+        LocalDateTime base = LocalDateTime.of(2026, 2, 12, 18, 0);
+        List<KitchenOrderResponse> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(i + 1, STATUSES[i % STATUSES.length], base.plusSeconds(i)));
+        }
+        return orders;
+    }
+
+    static KitchenOrderResponse order(long id, String status, LocalDateTime createdAt) {
+        List<KitchenOrderResponse.OrderItem> items = new ArrayList<>();
+        for (int j = 0; j < 3; j++) {
+            int item = (int) ((id + j) % ITEMS.length);
+            items.add(new KitchenOrderResponse.OrderItem(id * 10 + j, (long) item, ITEMS[item], 1 + j,
+                    new BigDecimal("12.50")));
+        }
+        return new KitchenOrderResponse(id, id % 40 + 1, id % 500 + 1, status, new BigDecimal("37.50"),
+                createdAt, items);
+    }
+}
@@ -0,0 +1,89 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.config.OrderReadyEventSerializer;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJacksonJsonRedisSerializer;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write path for a READY order and the Redis cache payload
+ *
+ * Uses the Jackson 3 serializers (JacksonJsonSerializer, GenericJacksonJsonRedisSerializer):
+ * they are what the Spring Boot 4 classpath provides at runtime. kafkaEncodeBinary is the
+ * kafka.order-ready.encoding=binary alternative to kafkaEncode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderReadyEventBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int orderCount;
+
+    private KitchenOrderResponse readyOrder;
+    private OrderReadyEvent event;
+    private List<KitchenOrderResponse> orders;
+    private byte[] redisPayload;
+
+    private JacksonJsonSerializer<OrderReadyEvent> kafkaSerializer;
+    private OrderReadyEventSerializer kafkaBinarySerializer;
+    private GenericJacksonJsonRedisSerializer redisSerializer;
+
+    @Setup
+    public void setUp() {
+        readyOrder = BenchmarkOrders.orders(1).get(0);
+        event = KitchenService.toOrderReadyEvent(readyOrder);
+        orders = BenchmarkOrders.orders(orderCount);
+
+        kafkaSerializer = new JacksonJsonSerializer<>();
+        kafkaSerializer.configure(Map.of(JacksonJsonSerializer.ADD_TYPE_INFO_HEADERS, false), false);
+        kafkaBinarySerializer = new OrderReadyEventSerializer();
+        redisSerializer = GenericJacksonJsonRedisSerializer.builder()
+                .enableUnsafeDefaultTyping()
+                .build();
+        redisPayload = redisSerializer.serialize(orders);
+    }
+
+    @Benchmark
+    public OrderReadyEvent mapReadyEvent() {
+        return KitchenService.toOrderReadyEvent(readyOrder);
+    }
+
+    @Benchmark
+    public byte[] kafkaEncode() {
+        return kafkaSerializer.serialize("order-ready", event);
+    }
+
+    @Benchmark
+    public byte[] kafkaEncodeBinary() {
+        return kafkaBinarySerializer.serialize("order-ready", event);
+    }
+
+    @Benchmark
+    public byte[] redisEncode() {
+        return redisSerializer.serialize(orders);
+    }
+
+    @Benchmark
+    public Object redisDecode() {
+        return redisSerializer.deserialize(redisPayload);
+    }
+
+    @Benchmark
+    public Object redisRoundTrip() {
+        return redisSerializer.deserialize(redisSerializer.serialize(orders));
+    }
+}
@@ -0,0 +1,61 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.config.CompactOrderRedisSerializer;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-order Redis value codecs (redis.codec)
+ *
+ * json: what the cache writes by default. compact / deflate: CompactOrderRedisSerializer without
+ * and with compression (threshold 1 byte, so every value is tried). Encoded sizes are in the README
+ * table and checked by CompactOrderRedisSerializerTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RedisCodecBenchmark {
+
+    @Param({"json", "compact", "deflate"})
+    public String codec;
+
+    private KitchenOrderResponse order;
+    private RedisSerializer<KitchenOrderResponse> serializer;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkOrders.order(1234, "PREPARING", LocalDateTime.of(2026, 2, 12, 18, 0));
+        RedisSerializer<KitchenOrderResponse> json =
+                new JacksonJsonRedisSerializer<>(JsonMapper.builder().build(), KitchenOrderResponse.class);
+        serializer = switch (codec) {
+            case "json" -> json;
+            case "compact" -> new CompactOrderRedisSerializer(json, 0);
+            default -> new CompactOrderRedisSerializer(json, 1);
+        };
+        payload = serializer.serialize(order);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(order);
+    }
+
+    @Benchmark
+    public KitchenOrderResponse decode() {
+        return serializer.deserialize(payload);
+    }
+}
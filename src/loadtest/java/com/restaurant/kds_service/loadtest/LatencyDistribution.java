@@ -0,0 +1,78 @@
+package com.restaurant.kds_service.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated upstream latency, parsed from a spec
+ *   fixed:5            always 5 ms
+ *   uniform:2-20       uniform between 2 and 20 ms
+ *   lognormal:8,120    long-tailed: median 8 ms, p99 120 ms (GC pauses, slow queries)
+ */
+final class LatencyDistribution {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    private enum Kind {
+        FIXED,
+        UNIFORM,
+        LOGNORMAL
+    }
+
+    private final Kind kind;
+    private final double a;
+    private final double b;
+    private final String spec;
+
+    private LatencyDistribution(Kind kind, double a, double b, String spec) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.spec = spec;
+    }
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":", 2);
+        String args = parts.length > 1 ? parts[1] : "";
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "fixed":
+                    return new LatencyDistribution(Kind.FIXED, Double.parseDouble(args), 0, spec);
+                case "uniform": {
+                    String[] range = args.split("-");
+                    return new LatencyDistribution(Kind.UNIFORM, Double.parseDouble(range[0]),
+                            Double.parseDouble(range[1]), spec);
+                }
+                case "lognormal": {
+                    String[] values = args.split(",");
+                    double median = Double.parseDouble(values[0]);
+                    double p99 = Double.parseDouble(values[1]);
+                    if (median <= 0 || p99 < median) {
+                        throw new IllegalArgumentException("lognormal needs 0 < median <= p99: " + spec);
+                    }
+                    return new LatencyDistribution(Kind.LOGNORMAL, Math.log(median), Math.log(p99 / median) / Z_99,
+                            spec);
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed latency distribution: " + spec, e);
+        }
+    }
+
+    long sampleMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double ms = switch (kind) {
+            case FIXED -> a;
+            case UNIFORM -> a + random.nextDouble() * (b - a);
+            case LOGNORMAL -> Math.exp(a + b * random.nextGaussian());
+        };
+        return Math.max(0, Math.round(ms));
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,97 @@
+package com.restaurant.kds_service.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-operation latency samples of one load-test run
+ *
+ * Samples are kept exactly (a run of a few minutes is a few million longs), so the reported
+ * percentiles are not bucket approximations. Nothing is recorded until start().
+ */
+final class LatencyRecorder {
+
+    record Summary(String operation, int count, long errors, double throughput,
+                   double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        synchronized void error() {
+            errors++;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+    }
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private volatile long startedAt;
+    private volatile long stoppedAt;
+
+    void start() {
+        startedAt = System.nanoTime();
+    }
+
+    void stop() {
+        stoppedAt = System.nanoTime();
+    }
+
+    boolean recording() {
+        return startedAt != 0 && stoppedAt == 0;
+    }
+
+    void record(String operation, long nanos) {
+        if (recording()) {
+            samples.computeIfAbsent(operation, key -> new Samples()).add(nanos);
+        }
+    }
+
+    void error(String operation) {
+        if (recording()) {
+            samples.computeIfAbsent(operation, key -> new Samples()).error();
+        }
+    }
+
+    /**
+     * Summaries by operation name; throughput counts successful operations over the recording window
+     */
+    Map<String, Summary> summarize() {
+        double seconds = ((stoppedAt != 0 ? stoppedAt : System.nanoTime()) - startedAt) / 1e9;
+        Map<String, Summary> summaries = new TreeMap<>();
+        samples.forEach((operation, recorded) -> {
+            long[] sorted = recorded.sorted();
+            summaries.put(operation, new Summary(operation, sorted.length, recorded.errors(),
+                    sorted.length / seconds, percentileMs(sorted, 0.50), percentileMs(sorted, 0.99),
+                    percentileMs(sorted, 0.999), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+        });
+        return summaries;
+    }
+
+    static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))] / 1e6;
+    }
+}
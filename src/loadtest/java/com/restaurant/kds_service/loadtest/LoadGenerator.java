@@ -0,0 +1,191 @@
+package com.restaurant.kds_service.loadtest;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated kitchen traffic against a running KDS
+ *
+ * Tablets poll GET /api/kitchen/orders every tablet-interval-ms (+/- 10%) with If-None-Match,
+ * like the displays do; cooks take orders from the latest board and move them CREATED/CONFIRMED ->
+ * PREPARING -> READY every cook-interval-ms. Each cook owns the orders with id % cooks == its
+ * index, so two cooks never race for the same order. Latencies go to the recorder as
+ *   poll (200), poll (304), preparing, ready
+ */
+final class LoadGenerator {
+
+    record Settings(String kdsUrl, int tablets, int cooks, long tabletIntervalMs, long cookIntervalMs,
+                    String view) {
+    }
+
+    private final Settings settings;
+    private final LatencyRecorder recorder;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final String ordersUrl;
+    private final String statusKey;
+
+    // Latest order statuses seen by any tablet (id -> status)
+    private volatile Map<Long, String> board = Map.of();
+    private volatile boolean running;
+
+    LoadGenerator(Settings settings, LatencyRecorder recorder) {
+        this.settings = settings;
+        this.recorder = recorder;
+        boolean display = "display".equals(settings.view());
+        this.ordersUrl = settings.kdsUrl() + "/api/kitchen/orders" + (display ? "?view=display" : "");
+        this.statusKey = display ? "s" : "status";
+    }
+
+    /**
+     * Run tablets and cooks for warmup + duration, recording only after the warmup
+     */
+    void run(Duration warmup, Duration duration) throws InterruptedException {
+        running = true;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < settings.tablets(); i++) {
+            threads.add(start("tablet-" + i, this::tablet));
+        }
+        for (int i = 0; i < settings.cooks(); i++) {
+            int index = i;
+            threads.add(start("cook-" + i, () -> cook(index)));
+        }
+
+        Thread.sleep(warmup.toMillis());
+        recorder.start();
+        Thread.sleep(duration.toMillis());
+        recorder.stop();
+
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(5000);
+        }
+    }
+
+    private static Thread start(String name, Runnable task) {
+        Thread thread = new Thread(task, "loadtest-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void tablet() {
+        String etag = null;
+        // Tablets do not all start at the same instant
+        pause(ThreadLocalRandom.current().nextLong(settings.tabletIntervalMs() + 1));
+        while (running && !Thread.currentThread().isInterrupted()) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(ordersUrl))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET();
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                long elapsed = System.nanoTime() - start;
+                if (response.statusCode() == 304) {
+                    recorder.record("poll (304)", elapsed);
+                } else if (response.statusCode() == 200) {
+                    recorder.record("poll (200)", elapsed);
+                    etag = response.headers().firstValue("ETag").orElse(null);
+                    board = parseBoard(response.body());
+                } else {
+                    recorder.error("poll (200)");
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                recorder.error("poll (200)");
+            }
+            long interval = settings.tabletIntervalMs();
+            pause(interval + ThreadLocalRandom.current().nextLong(-interval / 10, interval / 10 + 1));
+        }
+    }
+
+    private void cook(int index) {
+        // Statuses this cook has set since the board last showed them
+        Map<Long, String> moved = new HashMap<>();
+        while (running && !Thread.currentThread().isInterrupted()) {
+            Map<Long, String> current = board;
+            Long orderId = null;
+            String status = null;
+            for (Map.Entry<Long, String> entry : current.entrySet()) {
+                long id = entry.getKey();
+                String effective = moved.getOrDefault(id, entry.getValue());
+                if (id % settings.cooks() == index && !"READY".equals(effective)) {
+                    orderId = id;
+                    status = effective;
+                    break;
+                }
+            }
+            if (orderId != null) {
+                String next = "PREPARING".equals(status) ? "READY" : "PREPARING";
+                if (transition(orderId, next)) {
+                    moved.put(orderId, next);
+                }
+            }
+            if (moved.size() > 10_000) {
+                moved.keySet().retainAll(current.keySet());
+            }
+            pause(settings.cookIntervalMs());
+        }
+    }
+
+    private boolean transition(long orderId, String status) {
+        String operation = status.toLowerCase();
+        String path = "READY".equals(status) ? "ready" : "preparing";
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(settings.kdsUrl() + "/api/kitchen/orders/" + orderId + "/" + path))
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 200) {
+                recorder.record(operation, System.nanoTime() - start);
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            // counted below
+        }
+        recorder.error(operation);
+        return false;
+    }
+
+    private Map<Long, String> parseBoard(byte[] body) {
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        for (JsonNode order : jsonMapper.readTree(body)) {
+            statuses.put(order.path("id").asLong(), order.path(statusKey).asString(""));
+        }
+        return statuses;
+    }
+
+    private void pause(long ms) {
+        try {
+            Thread.sleep(Math.max(0, ms));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.restaurant.kds_service.loadtest;
+
+import com.restaurant.kds_service.KdsServiceApplication;
+import com.restaurant.kds_service.dto.OrderLifecycleEvent;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Capacity test of one KDS node without a real Order Service or Kafka
+ *
+ * Starts an embedded Kafka broker, the stub Order Service and the KDS application in this JVM,
+ * then runs the load generator against it and prints throughput and p50/p99/p99.9 latency per
+ * operation. Settings are system properties (defaults in brackets):
+ *   loadtest.tablets [50], loadtest.tablet-interval-ms [2000], loadtest.view [full|display]
+ *   loadtest.cooks [8], loadtest.cook-interval-ms [500]
+ *   loadtest.warmup-s [10], loadtest.duration-s [60]
+ *   loadtest.stub.orders [200], loadtest.stub.latency [lognormal:8,120], loadtest.stub.error-rate [0]
+ *   loadtest.kafka [true] (false: no broker, order-ready events stay in the outbox)
+ *   loadtest.ingestion [poll|events] (events: the stub also publishes order-events)
+ * Any KDS property can be set the same way (-Dpolling.interval-ms=1000) and wins over the
+ * harness defaults. Run with: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="..."
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tablets = Integer.getInteger("loadtest.tablets", 50);
+        int cooks = Integer.getInteger("loadtest.cooks", 8);
+        long tabletIntervalMs = Long.getLong("loadtest.tablet-interval-ms", 2000);
+        long cookIntervalMs = Long.getLong("loadtest.cook-interval-ms", 500);
+        String view = System.getProperty("loadtest.view", "full");
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-s", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-s", 60));
+        int orders = Integer.getInteger("loadtest.stub.orders", 200);
+        LatencyDistribution latency = LatencyDistribution.parse(
+                System.getProperty("loadtest.stub.latency", "lognormal:8,120"));
+        double errorRate = Double.parseDouble(System.getProperty("loadtest.stub.error-rate", "0"));
+        boolean kafka = Boolean.parseBoolean(System.getProperty("loadtest.kafka", "true"));
+        String ingestion = System.getProperty("loadtest.ingestion", "poll");
+        String orderEventsTopic = System.getProperty("kafka.topic.order-events", "order-events");
+
+        EmbeddedKafkaKraftBroker broker = null;
+        KafkaProducer<String, byte[]> eventProducer = null;
+        if (kafka) {
+            broker = new EmbeddedKafkaKraftBroker(1, 1,
+                    System.getProperty("kafka.topic.order-ready", "order-ready"), orderEventsTopic);
+            broker.afterPropertiesSet();
+            if (ingestion.equals("events")) {
+                eventProducer = eventProducer(broker.getBrokersAsString());
+            }
+        }
+
+        Consumer<OrderLifecycleEvent> events = eventProducer != null
+                ? publisher(eventProducer, orderEventsTopic)
+                : null;
+        try (StubOrderService stub = new StubOrderService(orders, latency, errorRate, events)) {
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("server.port", "0");
+            properties.put("order-service.base-url", stub.baseUrl());
+            properties.put("redis.enabled", "false");
+            properties.put("ingestion.mode", ingestion);
+            properties.put("kds.outbox.dir", Files.createTempDirectory("kds-loadtest-outbox").toString());
+            // Per-request INFO logging would dominate the measurement
+            properties.put("logging.level.com.restaurant", "WARN");
+            if (broker != null) {
+                properties.put("spring.kafka.bootstrap-servers", broker.getBrokersAsString());
+            }
+
+            try (ConfigurableApplicationContext kds = new SpringApplicationBuilder(KdsServiceApplication.class)
+                    .run(commandLine(properties))) {
+                String kdsUrl = "http://127.0.0.1:" + kds.getEnvironment().getProperty("local.server.port");
+                System.out.printf("%nKDS %s, Order Service stub %s (%d orders, latency %s, error rate %.3f), "
+                                + "Kafka %s, ingestion %s%n", kdsUrl, stub.baseUrl(), orders, latency, errorRate,
+                        broker != null ? broker.getBrokersAsString() : "off", ingestion);
+                System.out.printf("%d tablets every %d ms (view=%s), %d cooks every %d ms; warmup %ds, run %ds%n%n",
+                        tablets, tabletIntervalMs, view, cooks, cookIntervalMs, warmup.toSeconds(),
+                        duration.toSeconds());
+
+                LatencyRecorder recorder = new LatencyRecorder();
+                new LoadGenerator(new LoadGenerator.Settings(kdsUrl, tablets, cooks, tabletIntervalMs,
+                        cookIntervalMs, view), recorder).run(warmup, duration);
+
+                report(recorder);
+                System.out.printf("%nOrder Service stub: %d GET /active, %d PATCH /status, %d injected errors%n",
+                        stub.activeCalls(), stub.statusCalls(), stub.injectedErrors());
+            }
+        } finally {
+            if (eventProducer != null) {
+                eventProducer.close(Duration.ofSeconds(5));
+            }
+            if (broker != null) {
+                broker.destroy();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Harness defaults as command-line arguments (above application.yml), skipping any the
+     * user set as a system property
+     */
+    private static String[] commandLine(Map<String, String> properties) {
+        List<String> args = new ArrayList<>();
+        properties.forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                args.add("--" + key + "=" + value);
+            }
+        });
+        return args.toArray(String[]::new);
+    }
+
+    private static KafkaProducer<String, byte[]> eventProducer(String bootstrapServers) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return new KafkaProducer<>(config, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    private static Consumer<OrderLifecycleEvent> publisher(KafkaProducer<String, byte[]> producer, String topic) {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        return event -> producer.send(new ProducerRecord<>(topic, String.valueOf(event.getOrderId()),
+                jsonMapper.writeValueAsBytes(event)));
+    }
+
+    private static void report(LatencyRecorder recorder) {
+        System.out.printf("%-12s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (LatencyRecorder.Summary summary : recorder.summarize().values()) {
+            System.out.printf("%-12s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    summary.operation(), summary.count(), summary.errors(), summary.throughput(),
+                    summary.p50Ms(), summary.p99Ms(), summary.p999Ms(), summary.maxMs());
+        }
+    }
+}
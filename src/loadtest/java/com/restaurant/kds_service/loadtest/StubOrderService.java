@@ -0,0 +1,235 @@
+package com.restaurant.kds_service.loadtest;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderLifecycleEvent;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for Order Service, implementing the two calls KDS makes
+ *   GET   /api/orders/active            ETag / If-None-Match, optional ?page=&size= with X-Total-Count
+ *   PATCH /api/orders/{id}/status       {"status": "..."}, answers the updated order
+ *
+ * It holds a steady number of active orders: an order moved out of the active statuses is replaced
+ * by a new CREATED one, as in a venue at constant load. Every call waits for a sample of the
+ * latency distribution and fails with 503 at the configured error rate. Changes are also handed to
+ * an optional event listener (order-events on the embedded Kafka for ingestion.mode=events).
+ */
+final class StubOrderService implements AutoCloseable {
+
+    static {
+        // Headers and body go out in separate writes; with Nagle on, the delayed ACK adds ~40 ms per call
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final Set<String> ACTIVE_STATUSES = Set.of("CREATED", "CONFIRMED", "PREPARING");
+    private static final String[] MENU = {"Chicken Pizza", "Caesar Salad", "Cheeseburger", "Pad Thai", "Iced Tea",
+            "Fries", "Grilled Salmon", "Tiramisu"};
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Map<Long, KitchenOrderResponse> active = new ConcurrentHashMap<>();
+    private final AtomicLong nextOrderId = new AtomicLong(1);
+    // Bumped on every change; the ETag of /active and the version of order events
+    private final AtomicLong version = new AtomicLong(1);
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final Consumer<OrderLifecycleEvent> events;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder activeCalls = new LongAdder();
+    private final LongAdder statusCalls = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    StubOrderService(int orderCount, LatencyDistribution latency, double errorRate,
+                     Consumer<OrderLifecycleEvent> events) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.events = events != null ? events : event -> { };
+        for (int i = 0; i < orderCount; i++) {
+            KitchenOrderResponse order = newOrder();
+            active.put(order.getId(), order);
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Latency is simulated by sleeping, so every call needs its own thread
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/orders", this::handle);
+        server.start();
+    }
+
+    /**
+     * Base URL to configure as order-service.base-url
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/orders";
+    }
+
+    long activeCalls() {
+        return activeCalls.sum();
+    }
+
+    long statusCalls() {
+        return statusCalls.sum();
+    }
+
+    long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (method.equals("GET") && path.equals("/api/orders/active")) {
+                activeCalls.increment();
+                if (simulateCall(exchange)) {
+                    getActive(exchange);
+                }
+            } else if (method.equals("PATCH") && path.matches("/api/orders/\\d+/status")) {
+                statusCalls.increment();
+                if (simulateCall(exchange)) {
+                    patchStatus(exchange, Long.parseLong(path.split("/")[3]));
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+    }
+
+    /**
+     * Wait out the simulated latency; false when an error was injected and already answered
+     */
+    private boolean simulateCall(HttpExchange exchange) throws IOException {
+        long delayMs = latency.sampleMs();
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            injectedErrors.increment();
+            exchange.sendResponseHeaders(503, -1);
+            return false;
+        }
+        return true;
+    }
+
+    private void getActive(HttpExchange exchange) throws IOException {
+        String etag = "\"" + version.get() + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        List<KitchenOrderResponse> orders = new ArrayList<>(active.values());
+        orders.sort(Comparator.comparing(KitchenOrderResponse::getId));
+        Map<String, String> query = query(exchange.getRequestURI());
+        if (query.containsKey("page") && query.containsKey("size")) {
+            int size = Integer.parseInt(query.get("size"));
+            int from = Math.min(orders.size(), Integer.parseInt(query.get("page")) * size);
+            exchange.getResponseHeaders().set("X-Total-Count", String.valueOf(orders.size()));
+            orders = orders.subList(from, Math.min(orders.size(), from + size));
+        }
+        sendJson(exchange, 200, jsonMapper.writeValueAsBytes(orders));
+    }
+
+    private void patchStatus(HttpExchange exchange, long orderId) throws IOException {
+        JsonNode body = jsonMapper.readTree(exchange.getRequestBody());
+        String status = body.path("status").asString(null);
+        KitchenOrderResponse order = active.get(orderId);
+        if (order == null || status == null) {
+            exchange.sendResponseHeaders(order == null ? 404 : 400, -1);
+            return;
+        }
+
+        KitchenOrderResponse updated = copy(order, status);
+        long changeVersion = version.incrementAndGet();
+        if (ACTIVE_STATUSES.contains(status)) {
+            active.put(orderId, updated);
+        } else if (active.remove(orderId) != null) {
+            KitchenOrderResponse replacement = newOrder();
+            active.put(replacement.getId(), replacement);
+            events.accept(new OrderLifecycleEvent(OrderLifecycleEvent.Type.ORDER_CREATED, replacement.getId(),
+                    version.incrementAndGet(), replacement.getStatus(), replacement));
+        }
+        events.accept(new OrderLifecycleEvent(OrderLifecycleEvent.Type.ORDER_STATUS_CHANGED, orderId,
+                changeVersion, status, updated));
+        sendJson(exchange, 200, jsonMapper.writeValueAsBytes(updated));
+    }
+
+    private KitchenOrderResponse newOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = nextOrderId.getAndIncrement();
+        List<KitchenOrderResponse.OrderItem> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = random.nextInt(1, 5); i > 0; i--) {
+            int item = random.nextInt(MENU.length);
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(500, 2500), 2);
+            int quantity = random.nextInt(1, 4);
+            items.add(new KitchenOrderResponse.OrderItem(id * 10 + i, (long) item + 1, MENU[item], quantity, price));
+            total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+        }
+        return new KitchenOrderResponse(id, (long) random.nextInt(1, 41), (long) random.nextInt(1, 501), "CREATED",
+                total, LocalDateTime.now().withNano(0), items);
+    }
+
+    private static KitchenOrderResponse copy(KitchenOrderResponse order, String status) {
+        return new KitchenOrderResponse(order.getId(), order.getTableId(), order.getUserId(), status,
+                order.getTotalAmount(), order.getCreatedAt(), order.getItems());
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String pair : uri.getRawQuery().split("&")) {
+                String[] kv = pair.split("=", 2);
+                if (kv.length == 2) {
+                    params.put(kv[0], kv[1]);
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
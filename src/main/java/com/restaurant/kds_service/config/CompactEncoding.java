@@ -0,0 +1,140 @@
+package com.restaurant.kds_service.config;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Primitives shared by the compact binary codecs (cached orders, order-ready events)
+ *
+ * Integers are zig-zag varints, strings are a length-prefixed UTF-8 run, decimals are
+ * scale + length-prefixed unscaled bytes. Optional fields are announced by a presence bitmask
+ * written ahead of them, so an absent value takes no bytes at all.
+ */
+final class CompactEncoding {
+
+    private CompactEncoding() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    static final class Writer {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        void write(int b) {
+            bytes.write(b);
+        }
+
+        /**
+         * One bit per value that is non-null, lowest bit first (at most 8 values)
+         */
+        void bitmask(Object... values) {
+            int mask = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    mask |= 1 << i;
+                }
+            }
+            bytes.write(mask);
+        }
+
+        void optionalLong(Long value) {
+            if (value != null) {
+                varLong(value);
+            }
+        }
+
+        void optionalDecimal(BigDecimal value) {
+            if (value != null) {
+                varLong(value.scale());
+                byte[] unscaled = value.unscaledValue().toByteArray();
+                varLong(unscaled.length);
+                bytes.write(unscaled, 0, unscaled.length);
+            }
+        }
+
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varLong(utf8.length);
+            bytes.write(utf8, 0, utf8.length);
+        }
+
+        void varLong(long value) {
+            writeVarLong(bytes, value);
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Reads past the end throw IndexOutOfBoundsException
+     */
+    static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int position() {
+            return position;
+        }
+
+        int next() {
+            return bytes[position++] & 0xFF;
+        }
+
+        /**
+         * Length of a list whose elements take at least a byte each, so it cannot exceed the bytes left
+         */
+        int count() {
+            long count = varLong();
+            if (count < 0 || count > bytes.length - position) {
+                throw new IllegalArgumentException(
+                        "List of " + count + " elements in " + (bytes.length - position) + " remaining bytes");
+            }
+            return (int) count;
+        }
+
+        long varLong() {
+            long zigzag = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = next();
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        BigDecimal decimal() {
+            int scale = (int) varLong();
+            int length = (int) varLong();
+            BigInteger unscaled = new BigInteger(bytes, position, length);
+            position += length;
+            return new BigDecimal(unscaled, scale);
+        }
+
+        String string() {
+            int length = (int) varLong();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
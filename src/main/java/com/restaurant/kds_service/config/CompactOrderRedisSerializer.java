@@ -0,0 +1,220 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Schema-versioned binary codec for one cached order
+ *
+ * Layout: format byte, then (deflated when the format says so)
+ *   presence bitmask, id, tableId, userId, status, totalAmount, createdAt, item count, items
+ *   item: presence bitmask, id, itemId, itemName, quantity, unitPrice
+ * Values are written with CompactEncoding; timestamps are UTC epoch seconds + nanos, and the
+ * usual statuses are a one-byte code instead of a string.
+ *
+ * Values that start with '{' are JSON written by the JSON codec and are handed to the fallback,
+ * so redis.codec can be switched without clearing the cache.
+ */
+public class CompactOrderRedisSerializer implements RedisSerializer<KitchenOrderResponse> {
+
+    static final byte FORMAT_V1 = 1;
+    static final byte FORMAT_V1_DEFLATED = 2;
+
+    // Codes are part of the wire format: append only
+    private static final String[] STATUSES = {"CREATED", "CONFIRMED", "PREPARING", "READY", "SERVED", "CANCELLED"};
+
+    private final RedisSerializer<KitchenOrderResponse> jsonFallback;
+    private final int compressionThresholdBytes;
+
+    /**
+     * @param jsonFallback              decoder for values written by the JSON codec
+     * @param compressionThresholdBytes deflate encoded values larger than this, 0 = never
+     */
+    public CompactOrderRedisSerializer(RedisSerializer<KitchenOrderResponse> jsonFallback,
+                                       int compressionThresholdBytes) {
+        this.jsonFallback = jsonFallback;
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    @Override
+    public byte[] serialize(KitchenOrderResponse order) {
+        if (order == null) {
+            return null;
+        }
+        CompactEncoding.Writer out = new CompactEncoding.Writer();
+        out.write(FORMAT_V1);
+        writeOrder(out, order);
+        byte[] encoded = out.toByteArray();
+        if (compressionThresholdBytes > 0 && encoded.length > compressionThresholdBytes) {
+            byte[] deflated = deflate(encoded);
+            if (deflated.length < encoded.length) {
+                return deflated;
+            }
+        }
+        return encoded;
+    }
+
+    @Override
+    public KitchenOrderResponse deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return switch (bytes[0]) {
+                case FORMAT_V1 -> readOrder(new CompactEncoding.Reader(bytes, 1));
+                case FORMAT_V1_DEFLATED -> readOrder(new CompactEncoding.Reader(inflate(bytes), 0));
+                case '{' -> jsonFallback.deserialize(bytes);
+                default -> throw new SerializationException("Unknown cached order format " + bytes[0]);
+            };
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException
+                 | DataFormatException e) {
+            throw new SerializationException("Corrupt cached order", e);
+        }
+    }
+
+    private static void writeOrder(CompactEncoding.Writer out, KitchenOrderResponse order) {
+        int code = statusCode(order.getStatus());
+        out.bitmask(order.getId(), order.getTableId(), order.getUserId(), order.getStatus(),
+                order.getTotalAmount(), order.getCreatedAt(), order.getItems(), code >= 0 ? Boolean.TRUE : null);
+        out.optionalLong(order.getId());
+        out.optionalLong(order.getTableId());
+        out.optionalLong(order.getUserId());
+        if (order.getStatus() != null) {
+            if (code >= 0) {
+                out.write(code);
+            } else {
+                out.string(order.getStatus());
+            }
+        }
+        out.optionalDecimal(order.getTotalAmount());
+        if (order.getCreatedAt() != null) {
+            out.varLong(order.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            out.varLong(order.getCreatedAt().getNano());
+        }
+        if (order.getItems() != null) {
+            out.varLong(order.getItems().size());
+            for (KitchenOrderResponse.OrderItem item : order.getItems()) {
+                writeItem(out, item);
+            }
+        }
+    }
+
+    private static void writeItem(CompactEncoding.Writer out, KitchenOrderResponse.OrderItem item) {
+        if (item == null) {
+            out.write(0x80);
+            return;
+        }
+        out.bitmask(item.getId(), item.getItemId(), item.getItemName(), item.getQuantity(), item.getUnitPrice());
+        out.optionalLong(item.getId());
+        out.optionalLong(item.getItemId());
+        if (item.getItemName() != null) {
+            out.string(item.getItemName());
+        }
+        if (item.getQuantity() != null) {
+            out.varLong(item.getQuantity());
+        }
+        out.optionalDecimal(item.getUnitPrice());
+    }
+
+    private static KitchenOrderResponse readOrder(CompactEncoding.Reader in) {
+        int present = in.next();
+        KitchenOrderResponse order = new KitchenOrderResponse();
+        order.setId(has(present, 0) ? in.varLong() : null);
+        order.setTableId(has(present, 1) ? in.varLong() : null);
+        order.setUserId(has(present, 2) ? in.varLong() : null);
+        if (has(present, 3)) {
+            order.setStatus(has(present, 7) ? STATUSES[in.next()] : in.string());
+        }
+        order.setTotalAmount(has(present, 4) ? in.decimal() : null);
+        if (has(present, 5)) {
+            long epochSecond = in.varLong();
+            order.setCreatedAt(LocalDateTime.ofEpochSecond(epochSecond, (int) in.varLong(), ZoneOffset.UTC));
+        }
+        if (has(present, 6)) {
+            int count = in.count();
+            List<KitchenOrderResponse.OrderItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(readItem(in));
+            }
+            order.setItems(items);
+        }
+        return order;
+    }
+
+    private static KitchenOrderResponse.OrderItem readItem(CompactEncoding.Reader in) {
+        int present = in.next();
+        if (present == 0x80) {
+            return null;
+        }
+        KitchenOrderResponse.OrderItem item = new KitchenOrderResponse.OrderItem();
+        item.setId(has(present, 0) ? in.varLong() : null);
+        item.setItemId(has(present, 1) ? in.varLong() : null);
+        item.setItemName(has(present, 2) ? in.string() : null);
+        item.setQuantity(has(present, 3) ? (int) in.varLong() : null);
+        item.setUnitPrice(has(present, 4) ? in.decimal() : null);
+        return item;
+    }
+
+    private static int statusCode(String status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean has(int present, int bit) {
+        return (present & (1 << bit)) != 0;
+    }
+
+    private static byte[] deflate(byte[] encoded) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(encoded, 1, encoded.length - 1);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+            out.write(FORMAT_V1_DEFLATED);
+            CompactEncoding.writeVarLong(out, encoded.length - 1);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) throws DataFormatException {
+        CompactEncoding.Reader header = new CompactEncoding.Reader(bytes, 1);
+        int length = (int) header.varLong();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, header.position(), bytes.length - header.position());
+            byte[] inflated = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(inflated, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated deflated order");
+                }
+                read += n;
+            }
+            return read == length ? inflated : Arrays.copyOf(inflated, read);
+        } finally {
+            inflater.end();
+        }
+    }
+}
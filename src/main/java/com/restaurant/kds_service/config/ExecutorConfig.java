@@ -0,0 +1,129 @@
+package com.restaurant.kds_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for outbound Order Service work and Kafka send callbacks
+ *
+ * With spring.threads.virtual.enabled=true (Java 21+) all of them run on virtual threads; Spring Boot
+ * then also moves Tomcat request handling and the @Scheduled poller onto virtual threads.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs the PATCH calls of bulk status updates
+     * The pool size is the global limit on concurrent batch calls to Order Service
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor orderServiceExecutor(
+            @Value("${kitchen.batch.max-concurrency:8}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setThreadNamePrefix("order-service-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Virtual-thread variant: one virtual thread per call, same global concurrency limit
+     */
+    @Bean(name = "orderServiceExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualOrderServiceExecutor(
+            @Value("${kitchen.batch.max-concurrency:8}") int maxConcurrency) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-service-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrency);
+        executor.setTaskTerminationTimeout(5000);
+        return executor;
+    }
+
+    /**
+     * Runs hedged reads, apart from the batch and page fan-out on orderServiceExecutor
+     * No queue: when every thread is busy the read is not hedged and runs on the caller
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor orderServiceHedgeExecutor(
+            @Value("${order-service.hedge.max-concurrency:4}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("order-service-hedge-");
+        return executor;
+    }
+
+    /**
+     * Virtual-thread variant: same limit, a read waits for a permit instead of being rejected
+     */
+    @Bean(name = "orderServiceHedgeExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualOrderServiceHedgeExecutor(
+            @Value("${order-service.hedge.max-concurrency:4}") int maxConcurrency) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-service-hedge-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrency);
+        return executor;
+    }
+
+    /**
+     * Runs read-triggered revalidations of the active orders (one at a time)
+     * No queue and no waiting: a request thread that starts a revalidation returns at once, and when
+     * the thread is busy the revalidation is dropped for the scheduled poll to catch up.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor revalidationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("revalidation-");
+        return executor;
+    }
+
+    /**
+     * Virtual-thread variant: no concurrency limit, so starting a revalidation never blocks the request
+     */
+    @Bean(name = "revalidationExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualRevalidationExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("revalidation-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Runs Kafka send-completion callbacks
+     * Platform mode keeps them on the producer I/O thread (they only log).
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public TaskExecutor kafkaCallbackExecutor() {
+        return new SyncTaskExecutor();
+    }
+
+    /**
+     * Virtual-thread variant: callbacks leave the producer I/O thread immediately
+     */
+    @Bean(name = "kafkaCallbackExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualKafkaCallbackExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-callback-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
@@ -0,0 +1,62 @@
+package com.restaurant.kds_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pooling connection manager that records how long callers wait to lease a connection
+ * A growing lease wait means the pool is too small for the request rate (or upstream is slow)
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final Timer leaseWaitSuccess;
+    private final Timer leaseWaitTimeout;
+
+    public InstrumentedConnectionManager(MeterRegistry meterRegistry, String poolName) {
+        this.leaseWaitSuccess = leaseWaitTimer(meterRegistry, poolName, "success");
+        this.leaseWaitTimeout = leaseWaitTimer(meterRegistry, poolName, "timeout");
+    }
+
+    private static Timer leaseWaitTimer(MeterRegistry meterRegistry, String poolName, String outcome) {
+        return Timer.builder("kds.http.client.pool.lease.wait")
+                .description("Time spent waiting for a pooled connection")
+                .tag("pool", poolName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+        long start = System.nanoTime();
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                try {
+                    ConnectionEndpoint endpoint = delegate.get(timeout);
+                    leaseWaitSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return endpoint;
+                } catch (TimeoutException e) {
+                    leaseWaitTimeout.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.restaurant.kds_service.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JacksonJsonDeserializer;
+import tools.jackson.databind.json.JsonMapper;
+
+import com.restaurant.kds_service.dto.OrderLifecycleEvent;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Kafka consumer for Order Service order events (ingestion.mode=events)
+ *
+ * Every replica keeps its own ActiveOrderStore, so each one consumes the whole topic in its own
+ * consumer group and starts at the latest offset: anything published before startup is covered
+ * by the first poll. Records that cannot be decoded reach the listener with a null value instead
+ * of stopping the container.
+ *
+ * The group is named after the instance (ingestion.group-id, else kds-<hostname>; the pod name in
+ * Kubernetes), so a restarted replica rejoins its own group instead of leaving one behind.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ingestion.mode", havingValue = "events")
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    /**
+     * Consumer group of this replica, used by OrderEventListener
+     */
+    @Bean
+    public String orderEventGroupId(@Value("${ingestion.group-id:}") String groupId) {
+        if (!groupId.isBlank()) {
+            return groupId.trim();
+        }
+        String hostname = System.getenv("HOSTNAME");
+        if (hostname == null || hostname.isBlank()) {
+            try {
+                hostname = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(
+                        "Cannot derive a consumer group from the hostname - set ingestion.group-id", e);
+            }
+        }
+        return "kds-" + hostname.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Bean
+    public ConsumerFactory<String, OrderLifecycleEvent> orderEventConsumerFactory(JsonMapper jsonMapper) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new JacksonJsonDeserializer<>(OrderLifecycleEvent.class, jsonMapper, false)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderLifecycleEvent> orderEventListenerContainerFactory(
+            ConsumerFactory<String, OrderLifecycleEvent> orderEventConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, OrderLifecycleEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(orderEventConsumerFactory);
+        return factory;
+    }
+}
@@ -13,10 +13,12 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 import com.restaurant.kds_service.dto.OrderReadyEvent;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * Kafka Producer configuration for publishing order-ready events
+ * Encoding, batching and compression are set under kafka.order-ready / kafka.producer
  */
 @Configuration
 public class KafkaProducerConfig {
@@ -24,14 +26,51 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.order-ready.encoding:json}")
+    private String encoding;
+
+    @Value("${kafka.producer.linger-ms:5}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
     @Bean
     public ProducerFactory<String, OrderReadyEvent> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(
+                producerProperties(bootstrapServers, encoding, lingerMs, batchSize, compressionType));
+    }
+
+    /**
+     * Producer settings for order-ready events
+     *
+     * @param encoding        json (untyped JSON, readable by any consumer) or binary (OrderReadyEventSerializer)
+     * @param lingerMs        how long the producer waits to fill a batch
+     * @param batchSize       maximum batch size in bytes per partition
+     * @param compressionType none, gzip, snappy, lz4 or zstd (applied per batch)
+     */
+    static Map<String, Object> producerProperties(String bootstrapServers, String encoding, int lingerMs,
+                                                  int batchSize, String compressionType) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "json" -> {
+                configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+                configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+            }
+            case "binary" -> configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                    OrderReadyEventSerializer.class);
+            default -> throw new IllegalArgumentException(
+                    "Unknown kafka.order-ready.encoding: " + encoding + " (json or binary)");
+        }
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        return configProps;
     }
 
     @Bean
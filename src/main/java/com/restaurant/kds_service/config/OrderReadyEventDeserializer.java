@@ -0,0 +1,76 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumer side of OrderReadyEventSerializer
+ *
+ * Dispatches on the first byte: a known schema version is decoded as binary, '{' as the JSON the
+ * service sends with kafka.order-ready.encoding=json. A topic can therefore be switched from JSON
+ * to binary while consumers still have JSON records to read.
+ */
+public class OrderReadyEventDeserializer implements Deserializer<OrderReadyEvent> {
+
+    static final byte SCHEMA_V1 = 1;
+
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    public OrderReadyEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            return switch (data[0]) {
+                case SCHEMA_V1 -> readV1(new CompactEncoding.Reader(data, 1));
+                case '{' -> JSON.readValue(data, OrderReadyEvent.class);
+                default -> throw new SerializationException("Unknown order-ready schema version " + data[0]);
+            };
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | JacksonException e) {
+            throw new SerializationException("Corrupt order-ready event on " + topic, e);
+        }
+    }
+
+    private OrderReadyEvent readV1(CompactEncoding.Reader in) {
+        int present = in.next();
+        OrderReadyEvent event = new OrderReadyEvent();
+        event.setOrderId(has(present, 0) ? in.varLong() : null);
+        event.setTableId(has(present, 1) ? in.varLong() : null);
+        if (has(present, 3)) {
+            long epochSecond = in.varLong();
+            event.setReadyAt(LocalDateTime.ofEpochSecond(epochSecond, (int) in.varLong(), ZoneOffset.UTC));
+        }
+        if (has(present, 2)) {
+            int count = in.count();
+            List<OrderReadyEvent.OrderItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int itemPresent = in.next();
+                if (itemPresent == 0x80) {
+                    items.add(null);
+                    continue;
+                }
+                items.add(new OrderReadyEvent.OrderItem(
+                        has(itemPresent, 0) ? in.string() : null,
+                        has(itemPresent, 1) ? (int) in.varLong() : null));
+            }
+            event.setItems(items);
+        }
+        return event;
+    }
+
+    private static boolean has(int present, int bit) {
+        return (present & (1 << bit)) != 0;
+    }
+}
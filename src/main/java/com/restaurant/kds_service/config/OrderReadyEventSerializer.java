@@ -0,0 +1,70 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding for order-ready events (kafka.order-ready.encoding=binary)
+ *
+ * Schema v1: version byte, presence bitmask (orderId, tableId, items, readyAt), orderId,
+ * tableId, readyAt as UTC epoch seconds + nanos, item count, then per item a presence bitmask
+ * (itemName, quantity), itemName, quantity - see CompactEncoding for the primitives. readyAt is a
+ * zone-less local time, as in the JSON encoding: UTC only lays its fields out on a number line, so
+ * producer and consumer zones never enter into it.
+ *
+ * Every record also gets a content-type header naming the schema, for consumers that route on it.
+ * OrderReadyEventDeserializer reads this format and the JSON one.
+ */
+public class OrderReadyEventSerializer implements Serializer<OrderReadyEvent> {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String CONTENT_TYPE = "application/x-kds-order-ready;v=" + OrderReadyEventDeserializer.SCHEMA_V1;
+
+    private static final byte[] CONTENT_TYPE_BYTES = CONTENT_TYPE.getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, OrderReadyEvent event) {
+        if (event != null) {
+            headers.remove(CONTENT_TYPE_HEADER);
+            headers.add(CONTENT_TYPE_HEADER, CONTENT_TYPE_BYTES);
+        }
+        return serialize(topic, event);
+    }
+
+    @Override
+    public byte[] serialize(String topic, OrderReadyEvent event) {
+        if (event == null) {
+            return null;
+        }
+        CompactEncoding.Writer out = new CompactEncoding.Writer();
+        out.write(OrderReadyEventDeserializer.SCHEMA_V1);
+        out.bitmask(event.getOrderId(), event.getTableId(), event.getItems(), event.getReadyAt());
+        out.optionalLong(event.getOrderId());
+        out.optionalLong(event.getTableId());
+        if (event.getReadyAt() != null) {
+            out.varLong(event.getReadyAt().toEpochSecond(ZoneOffset.UTC));
+            out.varLong(event.getReadyAt().getNano());
+        }
+        if (event.getItems() != null) {
+            out.varLong(event.getItems().size());
+            for (OrderReadyEvent.OrderItem item : event.getItems()) {
+                if (item == null) {
+                    out.write(0x80);
+                    continue;
+                }
+                out.bitmask(item.getItemName(), item.getQuantity());
+                if (item.getItemName() != null) {
+                    out.string(item.getItemName());
+                }
+                if (item.getQuantity() != null) {
+                    out.varLong(item.getQuantity());
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+}
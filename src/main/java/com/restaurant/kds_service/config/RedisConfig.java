@@ -8,12 +8,15 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import tools.jackson.databind.json.JsonMapper;
 
 import com.restaurant.kds_service.dto.KitchenOrderResponse;
 
-import java.util.List;
+import java.util.Locale;
 
 /**
  * Optional Redis cache configuration
@@ -29,19 +32,52 @@ public class RedisConfig {
     @Value("${redis.port}")
     private int redisPort;
 
+    @Value("${redis.codec:json}")
+    private String codec;
+
+    @Value("${redis.compression-threshold-bytes:0}")
+    private int compressionThresholdBytes;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
         return new LettuceConnectionFactory(config);
     }
 
+    /**
+     * Per-order template: string keys and hash fields, values in the configured codec
+     * json    - Jackson 3 JSON (the Jackson 2 serializers are not on the Spring Boot 4 runtime classpath)
+     * compact - CompactOrderRedisSerializer, which still reads values written as JSON
+     */
     @Bean
-    public RedisTemplate<String, List<KitchenOrderResponse>> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, List<KitchenOrderResponse>> template = new RedisTemplate<>();
+    public RedisTemplate<String, KitchenOrderResponse> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                                     JsonMapper jsonMapper) {
+        RedisSerializer<KitchenOrderResponse> orderSerializer = orderSerializer(codec, compressionThresholdBytes,
+                new JacksonJsonRedisSerializer<>(jsonMapper, KitchenOrderResponse.class));
+        RedisTemplate<String, KitchenOrderResponse> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(orderSerializer);
+        template.setHashValueSerializer(orderSerializer);
         return template;
     }
+
+    static RedisSerializer<KitchenOrderResponse> orderSerializer(String codec, int compressionThresholdBytes,
+                                                                 RedisSerializer<KitchenOrderResponse> json) {
+        return switch (codec.trim().toLowerCase(Locale.ROOT)) {
+            case "json" -> json;
+            case "compact" -> new CompactOrderRedisSerializer(json, compressionThresholdBytes);
+            default -> throw new IllegalArgumentException("Unknown redis.codec: " + codec + " (json or compact)");
+        };
+    }
+
+    /**
+     * Plain string template for the polling lease and snapshot metadata
+     */
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory);
+    }
 }
 
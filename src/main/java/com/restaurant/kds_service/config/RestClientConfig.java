@@ -1,29 +1,173 @@
 package com.restaurant.kds_service.config;
 
+import com.restaurant.kds_service.service.Deadline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 /**
  * Configuration for REST client to communicate with Order Service via API Gateway
  * Uses Apache HttpClient5 to support PATCH HTTP method
+ *
+ * The client uses a bounded connection pool with explicit connect, lease and response
+ * timeouts, keep-alive and idle eviction. Pool size, lease wait and utilization are
+ * published as metrics so the pool can be sized from data.
+ * Setting order-service.http.http2=true switches to the JDK HTTP client (HTTP/2, multiplexed).
+ *
+ * A call made under a Deadline sends the remaining budget as X-Request-Timeout-Ms and, on the
+ * pooled client, uses it as the lease and response timeout when it is shorter than the configured ones.
  */
 @Configuration
 public class RestClientConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(RestClientConfig.class);
+    private static final String POOL_NAME = "order-service";
+
+    @Value("${order-service.http.max-total:100}")
+    private int maxTotal;
+
+    @Value("${order-service.http.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${order-service.http.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+
+    @Value("${order-service.http.lease-timeout-ms:500}")
+    private long leaseTimeoutMs;
+
+    @Value("${order-service.http.socket-timeout-ms:5000}")
+    private long socketTimeoutMs;
+
+    @Value("${order-service.http.response-timeout-ms:5000}")
+    private long responseTimeoutMs;
+
+    @Value("${order-service.http.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${order-service.http.idle-eviction-ms:30000}")
+    private long idleEvictionMs;
+
+    @Value("${order-service.http.validate-after-inactivity-ms:2000}")
+    private long validateAfterInactivityMs;
+
+    @Value("${order-service.http.http2:false}")
+    private boolean http2;
+
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(MeterRegistry meterRegistry) {
+        RestTemplate restTemplate = new RestTemplate(http2 ? jdkHttp2RequestFactory() : pooledRequestFactory(meterRegistry));
+        restTemplate.getInterceptors().add(deadlineHeader());
+        return restTemplate;
+    }
+
+    private static ClientHttpRequestInterceptor deadlineHeader() {
+        return (request, body, execution) -> {
+            Deadline deadline = Deadline.current();
+            if (deadline != null && deadline.isBounded()) {
+                request.getHeaders().set(Deadline.HEADER, String.valueOf(deadline.remainingMs()));
+            }
+            return execution.execute(request, body);
+        };
+    }
+
+    private ClientHttpRequestFactory pooledRequestFactory(MeterRegistry meterRegistry) {
+        InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(meterRegistry, POOL_NAME);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+                .setTcpNoDelay(true)
+                .build());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                .build());
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        Gauge.builder("kds.http.client.pool.utilization", connectionManager, RestClientConfig::utilization)
+                .description("Leased connections as a fraction of the pool maximum")
+                .tag("pool", POOL_NAME)
+                .register(meterRegistry);
+
         // Create Apache HttpClient5 which supports PATCH
-        CloseableHttpClient httpClient = HttpClients.createDefault();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(leaseTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                .build();
+
+        logger.info("Order Service HTTP client: pooled HTTP/1.1 (max total: {}, max per route: {}, "
+                        + "connect: {}ms, lease: {}ms, response: {}ms)",
+                maxTotal, maxPerRoute, connectTimeoutMs, leaseTimeoutMs, responseTimeoutMs);
 
         // Configure RestTemplate to use Apache HttpClient
-        HttpComponentsClientHttpRequestFactory factory =
-            new HttpComponentsClientHttpRequestFactory(httpClient);
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setHttpContextFactory((method, uri) -> deadlineContext(requestConfig));
+        return factory;
+    }
 
-        return new RestTemplate(factory);
+    /**
+     * Per-request timeouts cut to the remaining budget of the current Deadline (null: client defaults)
+     */
+    private HttpContext deadlineContext(RequestConfig defaults) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null || !deadline.isBounded()) {
+            return null;
+        }
+        long remainingMs = Math.max(1, deadline.remainingMs());
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.copy(defaults)
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(Math.min(leaseTimeoutMs, remainingMs)))
+                .setResponseTimeout(Timeout.ofMilliseconds(Math.min(responseTimeoutMs, remainingMs)))
+                .build());
+        return context;
+    }
+
+    private ClientHttpRequestFactory jdkHttp2RequestFactory() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        logger.info("Order Service HTTP client: JDK HTTP/2 (connect: {}ms, response: {}ms)",
+                connectTimeoutMs, responseTimeoutMs);
+        return factory;
     }
-}
 
+    private static double utilization(InstrumentedConnectionManager connectionManager) {
+        PoolStats stats = connectionManager.getTotalStats();
+        return stats.getMax() == 0 ? 0 : (double) stats.getLeased() / stats.getMax();
+    }
+}
@@ -1,14 +1,41 @@
 package com.restaurant.kds_service.controller;
 
+import com.restaurant.kds_service.dto.BatchStatusUpdateRequest;
+import com.restaurant.kds_service.dto.BatchStatusUpdateResponse;
 import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderFreshnessResponse;
+import com.restaurant.kds_service.service.ActiveOrderStore;
+import com.restaurant.kds_service.service.Deadline;
 import com.restaurant.kds_service.service.KitchenService;
+import com.restaurant.kds_service.service.OrderFreshness;
 import com.restaurant.kds_service.service.OrderPollingService;
+import com.restaurant.kds_service.service.OrderSnapshot;
+import com.restaurant.kds_service.service.OrderStreamService;
+import com.restaurant.kds_service.service.OrderView;
+import com.restaurant.kds_service.service.StationProjections;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * REST Controller for Kitchen Display System
@@ -16,29 +43,164 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/api/kitchen")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.AGE, KitchenController.FRESHNESS_HEADER})
 public class KitchenController {
 
     private static final Logger logger = LoggerFactory.getLogger(KitchenController.class);
 
-    private final OrderPollingService orderPollingService;
+    static final String FRESHNESS_HEADER = "X-KDS-Freshness";
+
+    private final ActiveOrderStore activeOrderStore;
     private final KitchenService kitchenService;
+    private final OrderStreamService orderStreamService;
+    private final OrderPollingService orderPollingService;
+    private final StationProjections stationProjections;
+    private final JsonMapper jsonMapper;
+    private final Counter snapshotReads;
+    private final Counter notModifiedReads;
+    private final Counter indexReads;
 
-    public KitchenController(OrderPollingService orderPollingService, KitchenService kitchenService) {
-        this.orderPollingService = orderPollingService;
+    public KitchenController(ActiveOrderStore activeOrderStore, KitchenService kitchenService,
+                             OrderStreamService orderStreamService, OrderPollingService orderPollingService,
+                             StationProjections stationProjections, JsonMapper jsonMapper,
+                             MeterRegistry meterRegistry) {
+        this.activeOrderStore = activeOrderStore;
         this.kitchenService = kitchenService;
+        this.orderStreamService = orderStreamService;
+        this.orderPollingService = orderPollingService;
+        this.stationProjections = stationProjections;
+        this.jsonMapper = jsonMapper;
+        this.snapshotReads = readCounter(meterRegistry, "hit");
+        this.notModifiedReads = readCounter(meterRegistry, "not_modified");
+        this.indexReads = readCounter(meterRegistry, "index");
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("kds.active_orders.reads")
+                .description("Active-order reads by source and result")
+                .tag("source", "memory")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get active orders for kitchen display
+     * Without filters: pre-serialized in-memory snapshot, rebuilt by the poller once per change.
+     * Honors If-None-Match (304) and serves the pre-compressed body when gzip is accepted.
+     * With filters (status, tableId, since, limit): answered from the store indexes in createdAt order.
+     * Every response (304 included) carries the data's freshness: Age, Cache-Control with
+     * stale-while-revalidate, and X-KDS-Freshness (fresh/stale/expired). Stale data is still served
+     * while a background revalidation runs. envelope=true wraps the orders with the same metadata
+     * in the body (no ETag, as the envelope changes with the age).
+     * view=display returns the compact display view (short names, epoch seconds; cached per
+     * snapshot like the full body), fields=... a projection of the full one (see OrderView).
+     */
+    @GetMapping(value = "/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getActiveOrders(
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @RequestParam(value = "tableId", required = false) Long tableId,
+            @RequestParam(value = "since", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "view", required = false) String viewName,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "envelope", defaultValue = "false") boolean envelope,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        OrderView view = view(viewName, fields);
+        OrderFreshness freshness = orderPollingService.freshness();
+        if (!freshness.isFresh()) {
+            logger.debug("Serving {} active orders ({}s old)", freshness.state(), freshness.ageSeconds());
+        }
+
+        if (statuses != null || tableId != null || since != null || limit != null) {
+            logger.debug("GET /api/kitchen/orders - Filtered query (status: {}, tableId: {}, since: {}, limit: {})",
+                    statuses, tableId, since, limit);
+            List<KitchenOrderResponse> orders = activeOrderStore.query(statuses, tableId, since, limit);
+            indexReads.increment();
+            if (!envelope && view == null) {
+                return withFreshness(ResponseEntity.ok(), freshness).body(orders);
+            }
+            byte[] json = view == null ? jsonMapper.writeValueAsBytes(orders) : view.toJson(orders, jsonMapper);
+            return withFreshness(ResponseEntity.ok(), freshness)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(envelope ? envelope(freshness, json) : json);
+        }
+
+        logger.debug("GET /api/kitchen/orders - Fetching active orders");
+        return snapshotResponse(activeOrderStore.getSnapshot(), view, envelope, freshness, ifNoneMatch, acceptEncoding);
     }
 
     /**
-     * Get all active orders for kitchen display
-     * Data source: Redis cache (if enabled) then In-memory cache then Empty list
+     * Get the active orders of one kitchen station, with only the items it prepares
+     * Served from a per-station snapshot maintained as orders change (see StationProjections),
+     * with the same ETag / gzip / freshness handling and view/fields/envelope options as
+     * GET /orders. Orders without items for the station are left out; 404 for an unknown station.
      */
-    @GetMapping("/orders")
-    public ResponseEntity<List<KitchenOrderResponse>> getActiveOrders() {
-        logger.info("GET /api/kitchen/orders - Fetching active orders");
-        List<KitchenOrderResponse> orders = orderPollingService.getActiveOrders();
-        logger.info("Returning {} active orders", orders.size());
-        return ResponseEntity.ok(orders);
+    @GetMapping(value = "/stations/{station}/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getStationOrders(
+            @PathVariable String station,
+            @RequestParam(value = "view", required = false) String viewName,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "envelope", defaultValue = "false") boolean envelope,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        OrderSnapshot snapshot = stationProjections.getSnapshot(station);
+        if (snapshot == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown station: " + station);
+        }
+        logger.debug("GET /api/kitchen/stations/{}/orders - Fetching station orders", station);
+        return snapshotResponse(snapshot, view(viewName, fields), envelope, orderPollingService.freshness(),
+                ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * A pre-serialized snapshot in the requested view, honoring If-None-Match and gzip
+     */
+    private ResponseEntity<?> snapshotResponse(OrderSnapshot snapshot, OrderView view, boolean envelope,
+                                               OrderFreshness freshness, String ifNoneMatch, String acceptEncoding) {
+        if (envelope) {
+            snapshotReads.increment();
+            return withFreshness(ResponseEntity.ok(), freshness)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(envelope(freshness, representation(snapshot, view).json()));
+        }
+        // Projections are built per request and sent uncompressed
+        boolean gzip = acceptsGzip(acceptEncoding) && (view == null || view == OrderView.DISPLAY);
+        String etag = snapshot.getEtag(view, gzip);
+
+        if (snapshot.matches(ifNoneMatch, view)) {
+            logger.debug("Active orders not modified (version {})", snapshot.getVersion());
+            notModifiedReads.increment();
+            return withFreshness(ResponseEntity.status(HttpStatus.NOT_MODIFIED), freshness)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        logger.debug("Returning {} active orders (version {})", snapshot.size(), snapshot.getVersion());
+        snapshotReads.increment();
+        ResponseEntity.BodyBuilder response = withFreshness(ResponseEntity.ok(), freshness)
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        OrderSnapshot.Encoded body = representation(snapshot, view);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    /**
+     * Push stream of active orders for kitchen displays (Server-Sent Events)
+     * Sends one "snapshot" event, then order-added / order-updated / order-removed events.
+     * Reconnecting clients send Last-Event-ID to resume without a new snapshot.
+     */
+    @GetMapping(value = "/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActiveOrders(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        logger.info("GET /api/kitchen/orders/stream - Opening order stream (Last-Event-ID: {})", lastEventId);
+        return orderStreamService.subscribe(lastEventId);
     }
 
     /**
@@ -47,15 +209,21 @@ public class KitchenController {
      * 1. Update Order Service status to READY
      * 2. If successful then Publish Kafka event
      * 3. If failed then Return error (no Kafka event)
+     * Double taps share one update; retries with the same Idempotency-Key get the first result.
+     * X-Request-Timeout-Ms bounds the wait for Order Service (default kitchen.deadline.default-ms);
+     * past it the answer is 504 instead of a hung tablet.
      */
     @PostMapping("/orders/{orderId}/ready")
     public ResponseEntity<KitchenOrderResponse> markOrderReady(
             @PathVariable Long orderId,
             @RequestHeader(value = "X-User-Id", required = false) String userId,
-            @RequestHeader(value = "X-Table-Id", required = false) String tableId) {
+            @RequestHeader(value = "X-Table-Id", required = false) String tableId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long requestTimeoutMs) {
         logger.info("POST /api/kitchen/orders/{}/ready - Marking order as READY (userId: {}, tableId: {})",
                 orderId, userId, tableId);
-        KitchenOrderResponse updatedOrder = kitchenService.markOrderAsReady(orderId, userId, tableId);
+        KitchenOrderResponse updatedOrder = kitchenService.markOrderAsReady(orderId, userId, tableId, idempotencyKey,
+                kitchenService.deadline(requestTimeoutMs));
         logger.info("Order {} marked as READY successfully", orderId);
         return ResponseEntity.ok(updatedOrder);
     }
@@ -67,10 +235,13 @@ public class KitchenController {
     public ResponseEntity<KitchenOrderResponse> markOrderPreparing(
             @PathVariable Long orderId,
             @RequestHeader(value = "X-User-Id", required = false) String userId,
-            @RequestHeader(value = "X-Table-Id", required = false) String tableId) {
+            @RequestHeader(value = "X-Table-Id", required = false) String tableId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long requestTimeoutMs) {
         logger.info("POST /api/kitchen/orders/{}/preparing - Marking order as PREPARING (userId: {}, tableId: {})",
                 orderId, userId, tableId);
-        KitchenOrderResponse updatedOrder = kitchenService.updateOrderStatus(orderId, "PREPARING", userId, tableId);
+        KitchenOrderResponse updatedOrder = kitchenService.updateOrderStatus(orderId, "PREPARING", userId, tableId,
+                idempotencyKey, kitchenService.deadline(requestTimeoutMs));
         logger.info("Order {} marked as PREPARING successfully", orderId);
         return ResponseEntity.ok(updatedOrder);
     }
@@ -82,14 +253,104 @@ public class KitchenController {
     public ResponseEntity<KitchenOrderResponse> markOrderCreated(
             @PathVariable Long orderId,
             @RequestHeader(value = "X-User-Id", required = false) String userId,
-            @RequestHeader(value = "X-Table-Id", required = false) String tableId) {
+            @RequestHeader(value = "X-Table-Id", required = false) String tableId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long requestTimeoutMs) {
         logger.info("POST /api/kitchen/orders/{}/created - Marking order as CREATED (userId: {}, tableId: {})",
                 orderId, userId, tableId);
-        KitchenOrderResponse updatedOrder = kitchenService.updateOrderStatus(orderId, "CREATED", userId, tableId);
+        KitchenOrderResponse updatedOrder = kitchenService.updateOrderStatus(orderId, "CREATED", userId, tableId,
+                idempotencyKey, kitchenService.deadline(requestTimeoutMs));
         logger.info("Order {} marked as CREATED successfully", orderId);
         return ResponseEntity.ok(updatedOrder);
     }
 
+    /**
+     * Update the status of several orders in one request
+     * Order Service calls run in parallel (bounded); each order succeeds or fails on its own.
+     * READY orders publish their order-ready events as one Kafka batch.
+     */
+    @PostMapping("/orders/batch")
+    public ResponseEntity<BatchStatusUpdateResponse> updateOrderStatuses(
+            @RequestBody List<BatchStatusUpdateRequest> updates,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Table-Id", required = false) String tableId,
+            @RequestHeader(value = Deadline.HEADER, required = false) Long requestTimeoutMs) {
+        logger.info("POST /api/kitchen/orders/batch - Updating {} orders (userId: {}, tableId: {})",
+                updates.size(), userId, tableId);
+        BatchStatusUpdateResponse response = kitchenService.updateOrderStatuses(updates, userId, tableId,
+                kitchenService.deadline(requestTimeoutMs));
+        return ResponseEntity.ok(response);
+    }
+
+    private static <B extends ResponseEntity.HeadersBuilder<B>> B withFreshness(B response, OrderFreshness freshness) {
+        return response
+                .header(HttpHeaders.AGE, String.valueOf(freshness.ageSeconds()))
+                .header(FRESHNESS_HEADER, freshness.state().name().toLowerCase(Locale.ROOT))
+                .cacheControl(CacheControl.maxAge(Duration.ofMillis(freshness.softTtlMs()))
+                        .staleWhileRevalidate(Duration.ofMillis(freshness.hardTtlMs() - freshness.softTtlMs())));
+    }
+
+    private static OrderView view(String viewName, String fields) {
+        if (fields != null) {
+            if (viewName != null && !viewName.equalsIgnoreCase("full")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields cannot be combined with view=" + viewName);
+            }
+            return OrderView.fields(fields);
+        }
+        if (viewName == null || viewName.equalsIgnoreCase("full")) {
+            return null;
+        }
+        if (viewName.equalsIgnoreCase("display")) {
+            return OrderView.DISPLAY;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown view: " + viewName);
+    }
+
+    /**
+     * The snapshot in the requested view; projections have no gzip variant
+     */
+    private OrderSnapshot.Encoded representation(OrderSnapshot snapshot, OrderView view) {
+        if (view == null) {
+            return new OrderSnapshot.Encoded(snapshot.getJson(), snapshot.getGzip());
+        }
+        if (view == OrderView.DISPLAY) {
+            return snapshot.getDisplay();
+        }
+        return new OrderSnapshot.Encoded(view.toJson(snapshot.getOrders(), jsonMapper), null);
+    }
+
+    /**
+     * {"freshness":{...},"orders":<orders>} around already serialized orders
+     */
+    private byte[] envelope(OrderFreshness freshness, byte[] orders) {
+        LocalDateTime confirmedAt = freshness.confirmedAt() > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(freshness.confirmedAt()), ZoneId.systemDefault())
+                : null;
+        byte[] head = jsonMapper.writeValueAsBytes(new OrderFreshnessResponse(freshness.state().name(),
+                freshness.ageSeconds(), confirmedAt, freshness.softTtlMs() / 1000, freshness.hardTtlMs() / 1000));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(head.length + orders.length + 32);
+        out.writeBytes("{\"freshness\":".getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(head);
+        out.writeBytes(",\"orders\":".getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(orders);
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,17 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a bulk status update (POST /api/kitchen/orders/batch takes a list of these)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStatusUpdateRequest {
+
+    private Long orderId;
+    private String status;
+}
@@ -0,0 +1,31 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk status update, one result per requested order (in request order)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStatusUpdateResponse {
+
+    private int succeeded;
+    private int failed;
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long orderId;
+        private String status;
+        private boolean success;
+        private KitchenOrderResponse order;
+        private String error;
+    }
+}
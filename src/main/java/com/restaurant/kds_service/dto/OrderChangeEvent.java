@@ -0,0 +1,26 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-order change pushed to kitchen displays over the SSE stream
+ * Clients apply ADDED/UPDATED as an upsert by orderId and REMOVED as a delete
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChangeEvent {
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    private long eventId;
+    private Type type;
+    private Long orderId;
+    private KitchenOrderResponse order;
+}
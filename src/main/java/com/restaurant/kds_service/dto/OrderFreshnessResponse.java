@@ -0,0 +1,24 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Freshness of the active orders, the "freshness" member of GET /api/kitchen/orders?envelope=true
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFreshnessResponse {
+
+    // FRESH, STALE or EXPIRED
+    private String state;
+    private long ageSeconds;
+    // When Order Service last confirmed the orders, null if it never has
+    private LocalDateTime confirmedAt;
+    private long softTtlSeconds;
+    private long hardTtlSeconds;
+}
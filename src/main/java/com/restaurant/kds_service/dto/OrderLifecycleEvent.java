@@ -0,0 +1,27 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order change published by Order Service (topic kafka.topic.order-events, keyed by orderId)
+ * version increases with every change to the order; KDS ignores events at or below the last one it applied
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLifecycleEvent {
+
+    public enum Type {
+        ORDER_CREATED,
+        ORDER_STATUS_CHANGED
+    }
+
+    private Type type;
+    private Long orderId;
+    private Long version;
+    private String status;
+    // Full order after the change; may be omitted on ORDER_STATUS_CHANGED
+    private KitchenOrderResponse order;
+}
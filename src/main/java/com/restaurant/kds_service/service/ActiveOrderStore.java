@@ -0,0 +1,523 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory store of active orders, indexed by order id, status and table id
+ *
+ * Every index keeps its orders sorted by createdAt (then id), so filtered and
+ * time-bounded queries walk only the matching orders in display order.
+ * A poll diff is applied atomically under the write lock, after which the
+ * pre-serialized snapshot is rebuilt and an ActiveOrdersChangedEvent is published.
+ * Events are queued under the write lock and published in that order by a single dispatcher
+ * thread, so listeners see the changes in the order they were applied, even when a poll and a
+ * status update for the same order race, and writers never wait for a slow listener.
+ *
+ * Confirmed status changes are written through immediately. Each local write is
+ * stamped with the store's mutation sequence; a poll that started before that
+ * sequence cannot overwrite (or re-add) the order, so a slower poll result never
+ * rolls back what the cook just did.
+ *
+ * Order events from Kafka are applied the same way, after a per-order version check:
+ * an event at or below the last version applied for that order is dropped. A write-through
+ * also fences the order's events: until the event carrying the written status arrives, the
+ * events ahead of it in the partition are older than the write and are dropped.
+ */
+@Component
+public class ActiveOrderStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveOrderStore.class);
+
+    static final Comparator<KitchenOrderResponse> DISPLAY_ORDER = Comparator
+            .comparing(KitchenOrderResponse::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(KitchenOrderResponse::getId);
+
+    private static final int MAX_EVENT_VERSIONS = 10_000;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonMapper jsonMapper;
+    private final Set<String> activeStatuses;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, KitchenOrderResponse> byId = new HashMap<>();
+    private final Map<String, NavigableSet<KitchenOrderResponse>> byStatus = new HashMap<>();
+    private final Map<Long, NavigableSet<KitchenOrderResponse>> byTable = new HashMap<>();
+    private final NavigableSet<KitchenOrderResponse> byCreatedAt = new TreeSet<>(DISPLAY_ORDER);
+
+    // Mutation sequence of the latest local write per order (guarded by lock)
+    private final Map<Long, Long> localWrites = new HashMap<>();
+    private long mutationSequence;
+
+    // Last event version applied per order, kept after removal so late duplicates stay rejected (guarded by lock)
+    private final Map<Long, Long> eventVersions = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > MAX_EVENT_VERSIONS;
+        }
+    };
+
+    // Status of each write-through its order's events have not confirmed yet (guarded by lock)
+    private final Map<Long, String> unconfirmedWrites = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_EVENT_VERSIONS;
+        }
+    };
+
+    // Change events in mutation order (offered under the write lock), drained by one dispatch task at a time
+    private final Queue<ActiveOrdersChangedEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final Executor eventDispatcher;
+
+    private volatile OrderSnapshot snapshot;
+
+    @Autowired
+    public ActiveOrderStore(
+            ApplicationEventPublisher eventPublisher,
+            JsonMapper jsonMapper,
+            @Value("${kds.active-statuses:CREATED,CONFIRMED,PREPARING}") Set<String> activeStatuses) {
+        this(eventPublisher, jsonMapper, activeStatuses, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "active-order-events");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ActiveOrderStore(ApplicationEventPublisher eventPublisher, JsonMapper jsonMapper, Set<String> activeStatuses,
+                     Executor eventDispatcher) {
+        this.eventPublisher = eventPublisher;
+        this.jsonMapper = jsonMapper;
+        this.activeStatuses = activeStatuses.stream()
+                .map(ActiveOrderStore::normalize)
+                .collect(Collectors.toUnmodifiableSet());
+        this.eventDispatcher = eventDispatcher;
+        this.snapshot = OrderSnapshot.build(0, List.of(), jsonMapper);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (eventDispatcher instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Mutation sequence to capture before fetching data that will later be applied
+     */
+    public long currentSequence() {
+        lock.readLock().lock();
+        try {
+            return mutationSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compute what would change if the store were replaced by {@code incoming}
+     */
+    public OrderDiff diff(Collection<KitchenOrderResponse> incoming) {
+        lock.readLock().lock();
+        try {
+            return OrderDiff.between(byId, incoming);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Start an incremental diff against this store, for orders that are ingested one at a time
+     * Finish it with {@link #diff(OrderDiff.Builder, boolean)}.
+     */
+    public OrderDiff.Builder diffBuilder() {
+        return new OrderDiff.Builder(this::get);
+    }
+
+    /**
+     * Complete an incremental diff: orders the builder has not seen are removed when {@code complete}
+     */
+    public OrderDiff diff(OrderDiff.Builder incoming, boolean complete) {
+        lock.readLock().lock();
+        try {
+            return incoming.build(byId, complete);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a diff atomically, rebuild the snapshot and notify listeners
+     *
+     * @param basedOnSequence {@link #currentSequence()} captured before the diffed data was fetched;
+     *                        orders written locally after that point are left untouched
+     */
+    public void apply(OrderDiff diff, ActiveOrdersChangedEvent.Source source, long basedOnSequence) {
+        if (diff.isEmpty()) {
+            return;
+        }
+        OrderDiff applied;
+        lock.writeLock().lock();
+        try {
+            // Local writes the diffed data has already seen no longer need protecting
+            localWrites.values().removeIf(sequence -> sequence <= basedOnSequence);
+            applied = localWrites.isEmpty() ? diff : new OrderDiff(
+                    withoutLocalWrites(diff.added()),
+                    withoutLocalWrites(diff.changed()),
+                    withoutLocalWrites(diff.removed()));
+            applyLocked(applied);
+            queueEvent(applied, source);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publishEvents();
+    }
+
+    /**
+     * Write a confirmed status change through to the store without waiting for the next poll
+     * Orders whose new status is no longer active (e.g. READY) are removed from the display.
+     */
+    public void writeThrough(KitchenOrderResponse order) {
+        if (order == null || order.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            queueEvent(upsertLocked(order), ActiveOrdersChangedEvent.Source.STATUS_UPDATE);
+            unconfirmedWrites.put(order.getId(), normalize(order.getStatus()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publishEvents();
+    }
+
+    /**
+     * Apply one order event from Order Service
+     * Like a local write, the result is protected from polls that started before it. After a
+     * write-through, events for the order are dropped until one carries the written status.
+     *
+     * @param orderId order the event is about
+     * @param version per-order event version, null when the producer does not send one (always applied)
+     * @param order   full order after the change, or null when only the new status is known
+     * @param status  new status, used when {@code order} is null
+     * @return false when the event is older than one already applied or than a write-through, carries a
+     *         different order, or names an order this store does not know without carrying it (left to the
+     *         next reconciliation poll)
+     */
+    public boolean applyEvent(Long orderId, Long version, KitchenOrderResponse order, String status) {
+        if (orderId == null || (order != null && !orderId.equals(order.getId()))) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Long applied = eventVersions.get(orderId);
+            if (version != null && applied != null && version <= applied) {
+                return false;
+            }
+            String written = unconfirmedWrites.get(orderId);
+            if (written != null) {
+                if (!written.equals(normalize(order != null ? order.getStatus() : status))) {
+                    return false;
+                }
+                unconfirmedWrites.remove(orderId);
+            }
+            KitchenOrderResponse existing = byId.get(orderId);
+            KitchenOrderResponse updated = order;
+            if (updated == null && existing != null) {
+                updated = new KitchenOrderResponse(existing.getId(), existing.getTableId(), existing.getUserId(),
+                        status, existing.getTotalAmount(), existing.getCreatedAt(), existing.getItems());
+            }
+            if (updated == null && activeStatuses.contains(normalize(status))) {
+                return false;
+            }
+            if (updated != null) {
+                queueEvent(upsertLocked(updated), ActiveOrdersChangedEvent.Source.EVENT);
+            }
+            if (version != null) {
+                eventVersions.put(orderId, version);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publishEvents();
+        return true;
+    }
+
+    // Caller must hold the write lock, so the queue order is the mutation order
+    private void queueEvent(OrderDiff diff, ActiveOrdersChangedEvent.Source source) {
+        if (!diff.isEmpty()) {
+            pendingEvents.add(new ActiveOrdersChangedEvent(diff, source));
+        }
+    }
+
+    /**
+     * Hand queued events to the dispatcher unless a dispatch task is already pending or running
+     */
+    private void publishEvents() {
+        if (pendingEvents.isEmpty() || !dispatchScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            eventDispatcher.execute(this::dispatchEvents);
+        } catch (RejectedExecutionException e) {
+            dispatchScheduled.set(false);
+            logger.debug("Active-order change events not published: dispatcher is shut down");
+        }
+    }
+
+    /**
+     * Publish queued events in order; only one dispatch task runs at a time
+     * A failing listener is logged, not rethrown: the change is already applied.
+     */
+    private void dispatchEvents() {
+        do {
+            ActiveOrdersChangedEvent event;
+            while ((event = pendingEvents.poll()) != null) {
+                try {
+                    eventPublisher.publishEvent(event);
+                } catch (RuntimeException e) {
+                    logger.warn("Active-order change listener failed ({} change): {}", event.source(), e.getMessage());
+                }
+            }
+            dispatchScheduled.set(false);
+            // An event queued after the last poll may have seen the flag still set and left it to this task
+        } while (!pendingEvents.isEmpty() && dispatchScheduled.compareAndSet(false, true));
+    }
+
+    // Caller must hold the write lock; applies one order as a protected local write
+    private OrderDiff upsertLocked(KitchenOrderResponse order) {
+        boolean active = activeStatuses.contains(normalize(order.getStatus()));
+        KitchenOrderResponse existing = byId.get(order.getId());
+        OrderDiff diff;
+        if (active && existing == null) {
+            diff = new OrderDiff(List.of(order), List.of(), List.of());
+        } else if (active && !existing.equals(order)) {
+            diff = new OrderDiff(List.of(), List.of(order), List.of());
+        } else if (!active && existing != null) {
+            diff = new OrderDiff(List.of(), List.of(), List.of(existing));
+        } else {
+            diff = OrderDiff.empty();
+        }
+        applyLocked(diff);
+        localWrites.put(order.getId(), mutationSequence);
+        return diff;
+    }
+
+    /**
+     * Current pre-serialized snapshot of all active orders (never null)
+     */
+    public OrderSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public KitchenOrderResponse get(Long orderId) {
+        lock.readLock().lock();
+        try {
+            return byId.get(orderId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtered lookup answered from the indexes, in createdAt order
+     *
+     * @param statuses statuses to include (case-insensitive), null or empty for any
+     * @param tableId  table to include, null for any
+     * @param since    only orders created at or after this time, null for no lower bound
+     * @param limit    maximum number of orders returned, null or non-positive for no limit
+     */
+    public List<KitchenOrderResponse> query(Collection<String> statuses, Long tableId,
+                                            LocalDateTime since, Integer limit) {
+        int max = limit == null || limit <= 0 ? Integer.MAX_VALUE : limit;
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<KitchenOrderResponse>> sources = candidates(statuses, tableId);
+            if (sources.isEmpty()) {
+                return List.of();
+            }
+
+            List<KitchenOrderResponse> result = new ArrayList<>();
+            if (sources.size() == 1) {
+                collect(sources.get(0), statuses, tableId, since, max, result);
+            } else {
+                // Several statuses: merge their (already sorted) indexes
+                TreeSet<KitchenOrderResponse> merged = new TreeSet<>(DISPLAY_ORDER);
+                for (NavigableSet<KitchenOrderResponse> source : sources) {
+                    collect(source, statuses, tableId, since, max, merged);
+                }
+                for (KitchenOrderResponse order : merged) {
+                    if (result.size() >= max) {
+                        break;
+                    }
+                    result.add(order);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller must hold the read lock; picks the narrowest index for the given filters
+    private List<NavigableSet<KitchenOrderResponse>> candidates(Collection<String> statuses, Long tableId) {
+        if (tableId != null) {
+            NavigableSet<KitchenOrderResponse> table = byTable.get(tableId);
+            return table == null ? List.of() : List.of(table);
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            List<NavigableSet<KitchenOrderResponse>> sets = new ArrayList<>();
+            for (String status : statuses) {
+                NavigableSet<KitchenOrderResponse> set = byStatus.get(normalize(status));
+                if (set != null) {
+                    sets.add(set);
+                }
+            }
+            return sets;
+        }
+        return List.of(byCreatedAt);
+    }
+
+    private static void collect(NavigableSet<KitchenOrderResponse> source, Collection<String> statuses,
+                                Long tableId, LocalDateTime since, int max,
+                                Collection<KitchenOrderResponse> out) {
+        Iterable<KitchenOrderResponse> range = since == null ? source : source.tailSet(probe(since), true);
+        int taken = 0;
+        for (KitchenOrderResponse order : range) {
+            if (taken >= max) {
+                break;
+            }
+            if (since != null && order.getCreatedAt() == null) {
+                // Orders without a timestamp sort last and never satisfy a lower bound
+                break;
+            }
+            if (tableId != null && !tableId.equals(order.getTableId())) {
+                continue;
+            }
+            if (statuses != null && !statuses.isEmpty() && !matchesStatus(order, statuses)) {
+                continue;
+            }
+            out.add(order);
+            taken++;
+        }
+    }
+
+    private static boolean matchesStatus(KitchenOrderResponse order, Collection<String> statuses) {
+        String status = normalize(order.getStatus());
+        for (String candidate : statuses) {
+            if (normalize(candidate).equals(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static KitchenOrderResponse probe(LocalDateTime since) {
+        KitchenOrderResponse probe = new KitchenOrderResponse();
+        probe.setId(Long.MIN_VALUE);
+        probe.setCreatedAt(since);
+        return probe;
+    }
+
+    private static String normalize(String status) {
+        return status == null ? "" : status.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Caller must hold the write lock
+    private void applyLocked(OrderDiff diff) {
+        mutationSequence++;
+        if (diff.isEmpty()) {
+            return;
+        }
+        for (KitchenOrderResponse order : diff.removed()) {
+            unindex(byId.remove(order.getId()));
+        }
+        for (KitchenOrderResponse order : diff.added()) {
+            unindex(byId.put(order.getId(), order));
+            index(order);
+        }
+        for (KitchenOrderResponse order : diff.changed()) {
+            unindex(byId.put(order.getId(), order));
+            index(order);
+        }
+        snapshot = OrderSnapshot.build(snapshot.getVersion() + 1, List.copyOf(byCreatedAt), jsonMapper);
+    }
+
+    // Caller must hold the write lock
+    private List<KitchenOrderResponse> withoutLocalWrites(List<KitchenOrderResponse> orders) {
+        return orders.stream()
+                .filter(order -> !localWrites.containsKey(order.getId()))
+                .toList();
+    }
+
+    // Caller must hold the write lock
+    private void index(KitchenOrderResponse order) {
+        byCreatedAt.add(order);
+        byStatus.computeIfAbsent(normalize(order.getStatus()), s -> new TreeSet<>(DISPLAY_ORDER)).add(order);
+        if (order.getTableId() != null) {
+            byTable.computeIfAbsent(order.getTableId(), t -> new TreeSet<>(DISPLAY_ORDER)).add(order);
+        }
+    }
+
+    // Caller must hold the write lock
+    private void unindex(KitchenOrderResponse order) {
+        if (order == null) {
+            return;
+        }
+        byCreatedAt.remove(order);
+        removeFrom(byStatus, normalize(order.getStatus()), order);
+        if (order.getTableId() != null) {
+            removeFrom(byTable, order.getTableId(), order);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, NavigableSet<KitchenOrderResponse>> index, K key,
+                                       KitchenOrderResponse order) {
+        NavigableSet<KitchenOrderResponse> set = index.get(key);
+        if (set != null) {
+            set.remove(order);
+            if (set.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
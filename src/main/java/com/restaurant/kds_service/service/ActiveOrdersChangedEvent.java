@@ -0,0 +1,15 @@
+package com.restaurant.kds_service.service;
+
+/**
+ * Application event raised whenever the active-order view changes
+ * Published by the poller (diff against Order Service), by kitchen status updates and by
+ * order events consumed from Kafka
+ */
+public record ActiveOrdersChangedEvent(OrderDiff diff, Source source) {
+
+    public enum Source {
+        POLL,
+        STATUS_UPDATE,
+        EVENT
+    }
+}
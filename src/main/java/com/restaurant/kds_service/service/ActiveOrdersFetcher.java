@@ -0,0 +1,243 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Streams GET /active into an OrderDiff.Builder instead of materializing the order list
+ *
+ * The response body is read with the Jackson streaming API one order at a time; each order is
+ * handed to the builder, which keeps it only if it differs from the store. Heap per poll is
+ * therefore bounded by the orders that changed, not by how many are active.
+ *
+ * With polling.page-size > 0 the list is requested as ?page=N&size=S. When the first page carries
+ * X-Total-Count, the remaining pages are fetched concurrently (at most polling.page-concurrency
+ * at a time); otherwise pages are fetched one after another until a short page. An upstream that
+ * ignores the parameters simply answers the whole list on page 0. Pages are fetched at different
+ * moments, so an order can slip between two of them while the list changes: when the distinct
+ * orders read do not add up to the total (or the total moves), the fetch is reported incomplete
+ * and the caller must not remove orders it did not see.
+ *
+ * The If-None-Match validator goes out on the first page only, so in paged mode Order Service is
+ * expected to answer every page with the ETag of the whole list.
+ */
+class ActiveOrdersFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveOrdersFetcher.class);
+
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    // Orders are bound one at a time from a parser positioned inside the array
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+            .build();
+
+    /**
+     * @param notModified Order Service answered 304 to the validator
+     * @param etag        validator of the list that was read, null if there was none or the read was incomplete
+     * @param orders      distinct orders read
+     * @param complete    every active order was read, so missing ones may be removed
+     */
+    record Result(boolean notModified, String etag, int orders, boolean complete) {
+    }
+
+    private record Page(boolean notModified, String etag, Long total, int orders, int accepted) {
+    }
+
+    private final RestTemplate restTemplate;
+    private final String url;
+    private final int pageSize;
+    private final int pageConcurrency;
+
+    ActiveOrdersFetcher(RestTemplate restTemplate, String url, int pageSize, int pageConcurrency) {
+        this.restTemplate = restTemplate;
+        this.url = url;
+        this.pageSize = pageSize;
+        this.pageConcurrency = Math.max(1, pageConcurrency);
+    }
+
+    boolean isPaged() {
+        return pageSize > 0;
+    }
+
+    /**
+     * Read the active orders into {@code sink}
+     *
+     * @param etag     validator to send, null for an unconditional fetch
+     * @param executor runs concurrent page fetches; null fetches pages on the calling thread
+     */
+    Result fetch(String etag, OrderDiff.Builder sink, AsyncTaskExecutor executor) {
+        if (pageSize <= 0) {
+            Page all = fetchPage(url, etag, sink);
+            return new Result(all.notModified(), all.etag(), all.accepted(), true);
+        }
+
+        Page first = fetchPage(pageUrl(0), etag, sink);
+        if (first.notModified()) {
+            return new Result(true, first.etag(), 0, true);
+        }
+        if (first.orders() < pageSize) {
+            // Single page, or an upstream that ignored the paging parameters
+            return new Result(false, first.etag(), sink.seen(), true);
+        }
+
+        Long total = first.total();
+        List<Page> pages = total != null
+                ? fetchRemainingPages((int) ((total + pageSize - 1) / pageSize), sink, executor)
+                : fetchPagesUntilShort(sink);
+
+        boolean complete = true;
+        if (total != null) {
+            boolean totalMoved = pages.stream().anyMatch(page -> page.total() != null && !page.total().equals(total));
+            complete = !totalMoved && sink.seen() == total;
+        }
+        if (!complete) {
+            logger.debug("Active orders changed while paging ({} read, {} expected) - keeping unseen orders",
+                    sink.seen(), total);
+        }
+        return new Result(false, complete ? first.etag() : null, sink.seen(), complete);
+    }
+
+    private List<Page> fetchRemainingPages(int pageCount, OrderDiff.Builder sink, AsyncTaskExecutor executor) {
+        List<Page> pages = new ArrayList<>();
+        if (executor == null) {
+            for (int page = 1; page < pageCount; page++) {
+                pages.add(fetchPage(pageUrl(page), null, sink));
+            }
+            return pages;
+        }
+
+        Semaphore inFlight = new Semaphore(pageConcurrency);
+        List<CompletableFuture<Page>> futures = new ArrayList<>();
+        try {
+            for (int page = 1; page < pageCount; page++) {
+                inFlight.acquire();
+                String pageUrl = pageUrl(page);
+                futures.add(executor.submitCompletable(() -> {
+                    try {
+                        return fetchPage(pageUrl, null, sink);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (CompletableFuture<Page> future : futures) {
+                pages.add(future.join());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new RestClientException("Interrupted while fetching active order pages", e);
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return pages;
+    }
+
+    private List<Page> fetchPagesUntilShort(OrderDiff.Builder sink) {
+        List<Page> pages = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            Page next = fetchPage(pageUrl(page), null, sink);
+            pages.add(next);
+            // A page with nothing new means the upstream is repeating itself (paging not supported)
+            if (next.orders() < pageSize || next.accepted() == 0) {
+                return pages;
+            }
+        }
+    }
+
+    private String pageUrl(int page) {
+        return UriComponentsBuilder.fromUriString(url)
+                .queryParam("page", page)
+                .queryParam("size", pageSize)
+                .toUriString();
+    }
+
+    private Page fetchPage(String pageUrl, String etag, OrderDiff.Builder sink) {
+        return restTemplate.execute(pageUrl, HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                    if (etag != null) {
+                        request.getHeaders().setIfNoneMatch(etag);
+                    }
+                },
+                response -> readPage(response, sink));
+    }
+
+    private static Page readPage(ClientHttpResponse response, OrderDiff.Builder sink) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return new Page(true, headers.getETag(), null, 0, 0);
+        }
+        String totalHeader = headers.getFirst(TOTAL_COUNT_HEADER);
+        Long total = totalHeader != null ? Long.valueOf(totalHeader.trim()) : null;
+
+        int[] counts = new int[2];
+        readOrders(response.getBody(), order -> {
+            counts[0]++;
+            if (sink.accept(order)) {
+                counts[1]++;
+            }
+        });
+        return new Page(false, headers.getETag(), total, counts[0], counts[1]);
+    }
+
+    /**
+     * Parse a JSON array of orders one element at a time; an empty body counts as an empty array
+     *
+     * @return number of array elements read (null elements included)
+     */
+    static int readOrders(InputStream body, Consumer<KitchenOrderResponse> consumer) {
+        int read = 0;
+        try (JsonParser parser = JSON.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return 0;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new RestClientException("Expected a JSON array of active orders but got " + token);
+            }
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new RestClientException("Active orders response ended after " + read + " orders");
+                }
+                read++;
+                consumer.accept(token == JsonToken.VALUE_NULL
+                        ? null
+                        : JSON.readValue(parser, KitchenOrderResponse.class));
+            }
+        } catch (JacksonException e) {
+            throw new RestClientException("Could not read active orders: " + e.getOriginalMessage(), e);
+        }
+        return read;
+    }
+}
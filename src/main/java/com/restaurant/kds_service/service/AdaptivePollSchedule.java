@@ -0,0 +1,149 @@
+package com.restaurant.kds_service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Poll interval and circuit breaker for Order Service polling
+ *
+ * The interval halves after a poll that changed the snapshot and grows by a quarter after one
+ * that did not, always within [min-interval-ms, max-interval-ms]; every delay gets +/- jitter so
+ * replicas drift apart instead of polling in lockstep.
+ *
+ * After failure-threshold consecutive failed polls the breaker opens: Order Service is left alone
+ * for initial-backoff-ms, doubling on every further failure up to max-backoff-ms. When the backoff
+ * has elapsed one trial poll is let through (half-open); success closes the breaker, failure
+ * opens it again with the next backoff.
+ */
+@Component
+public class AdaptivePollSchedule {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePollSchedule.class);
+
+    public enum BreakerState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final double jitter;
+    private final int failureThreshold;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private long intervalMs;
+    private int consecutiveFailures;
+    private BreakerState state = BreakerState.CLOSED;
+    private long backoffMs;
+    private long openUntil;
+
+    @Autowired
+    public AdaptivePollSchedule(
+            @Value("${polling.interval-ms:3000}") long intervalMs,
+            @Value("${polling.adaptive.enabled:true}") boolean adaptive,
+            @Value("${polling.adaptive.min-interval-ms:1000}") long minIntervalMs,
+            @Value("${polling.adaptive.max-interval-ms:15000}") long maxIntervalMs,
+            @Value("${polling.adaptive.jitter:0.1}") double jitter,
+            @Value("${polling.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${polling.circuit-breaker.initial-backoff-ms:5000}") long initialBackoffMs,
+            @Value("${polling.circuit-breaker.max-backoff-ms:120000}") long maxBackoffMs) {
+        this(intervalMs, adaptive ? minIntervalMs : intervalMs, adaptive ? maxIntervalMs : intervalMs, jitter,
+                failureThreshold, initialBackoffMs, maxBackoffMs, System::currentTimeMillis);
+    }
+
+    AdaptivePollSchedule(long intervalMs, long minIntervalMs, long maxIntervalMs, double jitter,
+                         int failureThreshold, long initialBackoffMs, long maxBackoffMs, LongSupplier clock) {
+        this.minIntervalMs = Math.min(minIntervalMs, maxIntervalMs);
+        this.maxIntervalMs = maxIntervalMs;
+        this.jitter = jitter;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.clock = clock;
+        this.intervalMs = clamp(intervalMs);
+    }
+
+    /**
+     * Whether Order Service may be called now; moves an open breaker whose backoff has elapsed to half-open
+     */
+    public synchronized boolean allowRequest() {
+        if (state == BreakerState.OPEN && clock.getAsLong() >= openUntil) {
+            state = BreakerState.HALF_OPEN;
+            logger.info("Order Service circuit half-open - sending a trial poll");
+        }
+        return state != BreakerState.OPEN;
+    }
+
+    /**
+     * A poll answered; {@code changed} is whether it changed the snapshot
+     */
+    public synchronized void recordSuccess(boolean changed) {
+        if (state != BreakerState.CLOSED) {
+            logger.info("Order Service recovered after {} failed polls - circuit closed", consecutiveFailures);
+        }
+        state = BreakerState.CLOSED;
+        consecutiveFailures = 0;
+        backoffMs = 0;
+        intervalMs = clamp(changed ? intervalMs / 2 : intervalMs + intervalMs / 4);
+    }
+
+    /**
+     * A poll failed; returns true when this failure opened (or re-opened) the breaker
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (state == BreakerState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            backoffMs = backoffMs == 0 ? initialBackoffMs : Math.min(maxBackoffMs, backoffMs * 2);
+            openUntil = clock.getAsLong() + backoffMs;
+            boolean opened = state != BreakerState.OPEN;
+            state = BreakerState.OPEN;
+            return opened;
+        }
+        return false;
+    }
+
+    /**
+     * Delay before the next poll: the current interval (or the remaining backoff while open), with jitter
+     */
+    public synchronized long nextDelayMs() {
+        long base = state == BreakerState.OPEN ? Math.max(openUntil - clock.getAsLong(), minIntervalMs) : intervalMs;
+        if (jitter <= 0) {
+            return base;
+        }
+        long spread = (long) (base * jitter);
+        return Math.max(1, base + ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+    }
+
+    public synchronized BreakerState state() {
+        return state;
+    }
+
+    public synchronized long intervalMs() {
+        return intervalMs;
+    }
+
+    public synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Current backoff while the breaker is not closed, 0 otherwise
+     */
+    public synchronized long backoffMs() {
+        return backoffMs;
+    }
+
+    private long clamp(long value) {
+        return Math.max(minIntervalMs, Math.min(maxIntervalMs, value));
+    }
+}
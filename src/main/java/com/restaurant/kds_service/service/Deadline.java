@@ -0,0 +1,81 @@
+package com.restaurant.kds_service.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Time budget of one request, carried to the Order Service calls made on its behalf
+ *
+ * A status update gets its budget from the caller's X-Request-Timeout-Ms header (capped) or the
+ * configured default. Each Order Service attempt runs with the deadline bound to its thread
+ * (callWith), where the HTTP client picks it up: the response timeout becomes the remaining
+ * budget and X-Request-Timeout-Ms is sent on, so Order Service can drop work nobody waits for.
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    /**
+     * No budget: calls are bounded by the HTTP client timeouts only (background polls)
+     */
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    // System.nanoTime() at which the budget runs out
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static Deadline within(long budgetMs) {
+        return new Deadline(System.nanoTime() + Math.max(0, budgetMs) * 1_000_000);
+    }
+
+    public boolean isBounded() {
+        return this != NONE;
+    }
+
+    /**
+     * Milliseconds left, 0 once expired (Long.MAX_VALUE for NONE)
+     */
+    public long remainingMs() {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (expiresAt - System.nanoTime()) / 1_000_000);
+    }
+
+    public boolean isExpired() {
+        return isBounded() && expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Deadline of the Order Service call running on this thread, null outside one
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run {@code call} with this deadline bound to the current thread
+     */
+    public <T> T callWith(Supplier<T> call) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isBounded() ? remainingMs() + "ms left" : "no deadline";
+    }
+}
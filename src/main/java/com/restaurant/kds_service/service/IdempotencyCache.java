@@ -0,0 +1,82 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, time-expiring cache of successful status updates by Idempotency-Key
+ *
+ * Entries are scoped to the operation (order and target status), so a key reused for a
+ * different request is a miss rather than a wrong answer. Failures are never cached, so a
+ * retry after an error goes upstream again.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final long ttlMs;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    // Insertion order == expiry order, so expired entries are always at the head
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    @Autowired
+    public IdempotencyCache(
+            @Value("${kitchen.idempotency.ttl-ms:600000}") long ttlMs,
+            @Value("${kitchen.idempotency.max-entries:10000}") int maxEntries) {
+        this(ttlMs, maxEntries, System::currentTimeMillis);
+    }
+
+    IdempotencyCache(long ttlMs, int maxEntries, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Cached result for this key and operation, or null if absent or expired
+     */
+    public synchronized KitchenOrderResponse get(String idempotencyKey, Long orderId, String status) {
+        evictExpired();
+        Entry entry = entries.get(scope(idempotencyKey, orderId, status));
+        return entry == null ? null : entry.value;
+    }
+
+    public synchronized void put(String idempotencyKey, Long orderId, String status, KitchenOrderResponse value) {
+        String scoped = scope(idempotencyKey, orderId, status);
+        entries.remove(scoped);
+        entries.put(scoped, new Entry(value, clock.getAsLong() + ttlMs));
+        evictExpired();
+        Iterator<String> oldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired() {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && iterator.next().getValue().expiresAt <= now) {
+            iterator.remove();
+        }
+    }
+
+    private static String scope(String idempotencyKey, Long orderId, String status) {
+        return idempotencyKey + '|' + orderId + '|' + status;
+    }
+
+    private record Entry(KitchenOrderResponse value, long expiresAt) {
+    }
+}
@@ -1,14 +1,21 @@
 package com.restaurant.kds_service.service;
 
 import com.restaurant.kds_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service responsible for publishing order-ready events to Kafka
@@ -20,12 +27,33 @@ public class KafkaPublisherService {
 
     private final KafkaTemplate<String, OrderReadyEvent> kafkaTemplate;
     private final String orderReadyTopic;
+    private final Executor callbackExecutor;
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
 
     public KafkaPublisherService(
             KafkaTemplate<String, OrderReadyEvent> kafkaTemplate,
-            @Value("${kafka.topic.order-ready}") String orderReadyTopic) {
+            @Value("${kafka.topic.order-ready}") String orderReadyTopic,
+            @Qualifier("kafkaCallbackExecutor") Executor callbackExecutor,
+            MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
         this.orderReadyTopic = orderReadyTopic;
+        this.callbackExecutor = callbackExecutor;
+        this.sendSuccess = sendTimer(meterRegistry, orderReadyTopic, "success");
+        this.sendFailure = sendTimer(meterRegistry, orderReadyTopic, "failure");
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String topic, String outcome) {
+        return Timer.builder("kds.kafka.send")
+                .description("Time from send until the broker acknowledged (or rejected) the record")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void recordSend(long startNanos, Throwable ex) {
+        (ex == null ? sendSuccess : sendFailure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -36,11 +64,13 @@ public class KafkaPublisherService {
         logger.info("Publishing order-ready event to Kafka - orderId: {}, tableId: {}",
                 event.getOrderId(), event.getTableId());
 
+        long start = System.nanoTime();
         try {
             CompletableFuture<SendResult<String, OrderReadyEvent>> future =
                     kafkaTemplate.send(orderReadyTopic, event.getOrderId().toString(), event);
 
-            future.whenComplete((result, ex) -> {
+            future.whenCompleteAsync((result, ex) -> {
+                recordSend(start, ex);
                 if (ex == null) {
                     logger.info("Order-ready event published successfully - orderId: {}, offset: {}",
                             event.getOrderId(), result.getRecordMetadata().offset());
@@ -48,11 +78,48 @@ public class KafkaPublisherService {
                     logger.error("Failed to publish order-ready event - orderId: {}, error: {}",
                             event.getOrderId(), ex.getMessage(), ex);
                 }
-            });
+            }, callbackExecutor);
         } catch (Exception e) {
+            recordSend(start, e);
             logger.error("Exception while publishing order-ready event - orderId: {}",
                     event.getOrderId(), e);
         }
     }
-}
 
+    /**
+     * Publish several order-ready events at once (outbox relay, bulk status update)
+     * All records are handed to the producer first so they share batches, then flushed once.
+     * Returns one future per event, in the same order.
+     */
+    public List<CompletableFuture<SendResult<String, OrderReadyEvent>>> publishOrderReadyEvents(
+            List<OrderReadyEvent> events) {
+        logger.info("Publishing {} order-ready events to Kafka", events.size());
+
+        List<CompletableFuture<SendResult<String, OrderReadyEvent>>> futures = new ArrayList<>(events.size());
+        for (OrderReadyEvent event : events) {
+            long start = System.nanoTime();
+            try {
+                CompletableFuture<SendResult<String, OrderReadyEvent>> future =
+                        kafkaTemplate.send(orderReadyTopic, event.getOrderId().toString(), event);
+                future.whenComplete((result, ex) -> recordSend(start, ex));
+                futures.add(future);
+            } catch (Exception e) {
+                recordSend(start, e);
+                logger.error("Exception while publishing order-ready event - orderId: {}",
+                        event.getOrderId(), e);
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        kafkaTemplate.flush();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenCompleteAsync((ignored, ex) -> {
+            long failed = futures.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+            if (failed == 0) {
+                logger.info("Published {} order-ready events successfully", events.size());
+            } else {
+                logger.error("Failed to publish {} of {} order-ready events", failed, events.size());
+            }
+        }, callbackExecutor);
+        return futures;
+    }
+}
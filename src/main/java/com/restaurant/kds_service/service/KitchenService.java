@@ -1,18 +1,34 @@
 package com.restaurant.kds_service.service;
 
+import com.restaurant.kds_service.dto.BatchStatusUpdateRequest;
+import com.restaurant.kds_service.dto.BatchStatusUpdateResponse;
 import com.restaurant.kds_service.dto.KitchenOrderResponse;
 import com.restaurant.kds_service.dto.OrderReadyEvent;
 import com.restaurant.kds_service.dto.UpdateOrderStatusRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -25,16 +41,57 @@ public class KitchenService {
     private static final Logger logger = LoggerFactory.getLogger(KitchenService.class);
 
     private final RestTemplate restTemplate;
-    private final KafkaPublisherService kafkaPublisherService;
+    private final OrderReadyOutbox orderReadyOutbox;
+    private final ActiveOrderStore activeOrderStore;
+    private final AsyncTaskExecutor orderServiceExecutor;
     private final String orderServiceBaseUrl;
+    private final int maxBatchSize;
+    private final IdempotencyCache idempotencyCache;
+    private final OrderServiceCalls orderServiceCalls;
+    private final long defaultDeadlineMs;
+    private final long maxDeadlineMs;
+    private final MeterRegistry meterRegistry;
+
+    // Concurrent identical transitions (double taps) share one upstream call, keyed "orderId:STATUS"
+    private final SingleFlight<String, KitchenOrderResponse> statusUpdates = new SingleFlight<>();
 
     public KitchenService(
             RestTemplate restTemplate,
-            KafkaPublisherService kafkaPublisherService,
-            @Value("${order-service.base-url}") String orderServiceBaseUrl) {
+            OrderReadyOutbox orderReadyOutbox,
+            ActiveOrderStore activeOrderStore,
+            @Qualifier("orderServiceExecutor") AsyncTaskExecutor orderServiceExecutor,
+            @Value("${order-service.base-url}") String orderServiceBaseUrl,
+            @Value("${kitchen.batch.max-size:50}") int maxBatchSize,
+            IdempotencyCache idempotencyCache,
+            OrderServiceCalls orderServiceCalls,
+            @Value("${kitchen.deadline.default-ms:3000}") long defaultDeadlineMs,
+            @Value("${kitchen.deadline.max-ms:10000}") long maxDeadlineMs,
+            MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
-        this.kafkaPublisherService = kafkaPublisherService;
+        this.orderReadyOutbox = orderReadyOutbox;
+        this.activeOrderStore = activeOrderStore;
+        this.orderServiceExecutor = orderServiceExecutor;
         this.orderServiceBaseUrl = orderServiceBaseUrl;
+        this.maxBatchSize = maxBatchSize;
+        this.idempotencyCache = idempotencyCache;
+        this.orderServiceCalls = orderServiceCalls;
+        this.defaultDeadlineMs = defaultDeadlineMs;
+        this.maxDeadlineMs = maxDeadlineMs;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Deadline for a status update: the caller's X-Request-Timeout-Ms (capped at kitchen.deadline.max-ms)
+     * or kitchen.deadline.default-ms when it sent none
+     */
+    public Deadline deadline(Long requestedTimeoutMs) {
+        if (requestedTimeoutMs == null) {
+            return Deadline.within(defaultDeadlineMs);
+        }
+        if (requestedTimeoutMs <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, Deadline.HEADER + " must be positive");
+        }
+        return Deadline.within(Math.min(requestedTimeoutMs, maxDeadlineMs));
     }
 
     /**
@@ -42,48 +99,29 @@ public class KitchenService {
      * 1. Update Order Service status
      * 2. If successful → Publish Kafka event
      * 3. If failed → Throw exception (no Kafka event)
+     * Concurrent calls for the same order share one PATCH and one event; a repeated
+     * Idempotency-Key returns the earlier result without calling Order Service again.
+     * Order Service must answer within the deadline, otherwise 504.
      */
-    public KitchenOrderResponse markOrderAsReady(Long orderId, String userId, String tableId) {
+    public KitchenOrderResponse markOrderAsReady(Long orderId, String userId, String tableId, String idempotencyKey,
+                                                 Deadline deadline) {
         logger.info("Marking order {} as READY (userId: {}, tableId: {})", orderId, userId, tableId);
 
-        // Step 1: Update Order Service
-        String url = orderServiceBaseUrl + "/" + orderId + "/status";
-        UpdateOrderStatusRequest request = new UpdateOrderStatusRequest("READY");
-
-        // Add authorization headers
-        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-        if (userId != null) {
-            headers.set("X-User-ID", userId);
-            logger.debug("Adding X-User-ID header: {}", userId);
-        }
-        if (tableId != null) {
-            headers.set("X-Table-ID", tableId);
-            logger.debug("Adding X-Table-ID header: {}", tableId);
+        KitchenOrderResponse cached = cachedResult(idempotencyKey, orderId, "READY");
+        if (cached != null) {
+            return cached;
         }
 
-        HttpEntity<UpdateOrderStatusRequest> requestEntity = new HttpEntity<>(request, headers);
-
         try {
-            logger.info("Calling Order Service to update order {} status to READY", orderId);
-            ResponseEntity<KitchenOrderResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.PATCH,
-                    requestEntity,
-                    KitchenOrderResponse.class
-            );
-
-            KitchenOrderResponse updatedOrder = response.getBody();
-            if (updatedOrder == null) {
-                throw new RuntimeException("Order Service returned null response for orderId: " + orderId);
-            }
-
+            KitchenOrderResponse updatedOrder = transition(orderId, "READY", userId, tableId, deadline);
             logger.info("Order {} status updated successfully in Order Service", orderId);
 
-            // Step 2: Publish Kafka event (only if Order Service update succeeded)
-            publishOrderReadyEvent(updatedOrder);
-
+            rememberResult(idempotencyKey, orderId, "READY", updatedOrder);
             return updatedOrder;
 
+        } catch (ResponseStatusException e) {
+            logger.error("Failed to update order {} in Order Service: {}", orderId, e.getReason());
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to update order {} in Order Service: {}", orderId, e.getMessage());
             throw new RuntimeException("Failed to mark order as READY: " + e.getMessage(), e);
@@ -92,11 +130,149 @@ public class KitchenService {
 
     /**
      * Update order status to any status (CREATED, PREPARING, READY, etc.)
-     * Generic method for status updates without Kafka events
+     * Only READY queues a Kafka event, the same one markOrderAsReady would.
      */
-    public KitchenOrderResponse updateOrderStatus(Long orderId, String status, String userId, String tableId) {
+    public KitchenOrderResponse updateOrderStatus(Long orderId, String status, String userId, String tableId,
+                                                  String idempotencyKey, Deadline deadline) {
         logger.info("Updating order {} status to {} (userId: {}, tableId: {})", orderId, status, userId, tableId);
 
+        KitchenOrderResponse cached = cachedResult(idempotencyKey, orderId, status);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            KitchenOrderResponse updatedOrder = transition(orderId, status, userId, tableId, deadline);
+            logger.info("Order {} status updated successfully to {} in Order Service", orderId, status);
+
+            rememberResult(idempotencyKey, orderId, status, updatedOrder);
+            return updatedOrder;
+
+        } catch (ResponseStatusException e) {
+            logger.error("Failed to update order {} to {}: {}", orderId, status, e.getReason());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to update order {} to {}: {}", orderId, status, e.getMessage());
+            throw new RuntimeException("Failed to update order status to " + status + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Update many orders at once (expo "bump" of several tickets)
+     * PATCHes run concurrently on the bounded orderServiceExecutor; each order succeeds or fails
+     * on its own, and each order that reaches READY queues its order-ready event like a single tap.
+     * Repeated entries for the same order and status share one update. All PATCHes share the
+     * request's deadline.
+     */
+    public BatchStatusUpdateResponse updateOrderStatuses(List<BatchStatusUpdateRequest> updates,
+                                                         String userId, String tableId, Deadline deadline) {
+        if (updates == null || updates.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch must contain at least one order");
+        }
+        if (updates.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch of " + updates.size() + " orders exceeds the limit of " + maxBatchSize);
+        }
+        logger.info("Updating {} orders in batch (userId: {}, tableId: {})", updates.size(), userId, tableId);
+
+        List<CompletableFuture<BatchStatusUpdateResponse.Result>> futures = new ArrayList<>(updates.size());
+        Map<String, CompletableFuture<BatchStatusUpdateResponse.Result>> byTransition = new HashMap<>();
+        for (BatchStatusUpdateRequest update : updates) {
+            String status = normalizeStatus(update.getStatus());
+            if (update.getOrderId() == null || status == null || status.isEmpty()) {
+                futures.add(updateForBatch(update.getOrderId(), status, userId, tableId, deadline));
+            } else {
+                futures.add(byTransition.computeIfAbsent(flightKey(update.getOrderId(), status),
+                        key -> updateForBatch(update.getOrderId(), status, userId, tableId, deadline)));
+            }
+        }
+
+        List<BatchStatusUpdateResponse.Result> results = new ArrayList<>(futures.size());
+        int succeeded = 0;
+        for (CompletableFuture<BatchStatusUpdateResponse.Result> future : futures) {
+            BatchStatusUpdateResponse.Result result = future.join();
+            results.add(result);
+            if (result.isSuccess()) {
+                succeeded++;
+            }
+        }
+
+        int failed = results.size() - succeeded;
+        logger.info("Batch status update finished - succeeded: {}, failed: {}", succeeded, failed);
+        return new BatchStatusUpdateResponse(succeeded, failed, results);
+    }
+
+    private static String normalizeStatus(String status) {
+        return status == null ? null : status.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private CompletableFuture<BatchStatusUpdateResponse.Result> updateForBatch(
+            Long orderId, String status, String userId, String tableId, Deadline deadline) {
+        if (orderId == null || status == null || status.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchStatusUpdateResponse.Result(
+                    orderId, status, false, null, "orderId and status are required"));
+        }
+
+        return CompletableFuture
+                .supplyAsync(() -> transition(orderId, status, userId, tableId, deadline), orderServiceExecutor)
+                .handle((order, ex) -> {
+                    if (ex == null) {
+                        return new BatchStatusUpdateResponse.Result(orderId, status, true, order, null);
+                    }
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    String error = cause instanceof ResponseStatusException statusException
+                            ? statusException.getReason() : cause.getMessage();
+                    logger.error("Failed to update order {} to {} in batch: {}", orderId, status, error);
+                    return new BatchStatusUpdateResponse.Result(orderId, status, false, null, error);
+                });
+    }
+
+    private KitchenOrderResponse cachedResult(String idempotencyKey, Long orderId, String status) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        KitchenOrderResponse cached = idempotencyCache.get(idempotencyKey, orderId, status);
+        if (cached != null) {
+            logger.info("Order {} already moved to {} for Idempotency-Key {}, returning cached result",
+                    orderId, status, idempotencyKey);
+        }
+        return cached;
+    }
+
+    private void rememberResult(String idempotencyKey, Long orderId, String status, KitchenOrderResponse order) {
+        if (idempotencyKey != null) {
+            idempotencyCache.put(idempotencyKey, orderId, status, order);
+        }
+    }
+
+    private static String flightKey(Long orderId, String status) {
+        return orderId + ":" + status;
+    }
+
+    /**
+     * Move one order to a status, sharing the work with concurrent identical transitions
+     * Whoever runs the flight PATCHes Order Service and, for READY, queues the order-ready event;
+     * callers that join it (a double tap, a batch entry racing a tablet tap) only get the result,
+     * so each transition queues one event.
+     */
+    private KitchenOrderResponse transition(Long orderId, String status, String userId, String tableId,
+                                            Deadline deadline) {
+        return statusUpdates.execute(flightKey(orderId, status), () -> {
+            KitchenOrderResponse order = patchOrderStatus(orderId, status, userId, tableId, deadline);
+            if ("READY".equals(status)) {
+                // Only after Order Service accepted the update
+                publishOrderReadyEvent(order);
+            }
+            return order;
+        });
+    }
+
+    /**
+     * PATCH the order status in Order Service and write the result through to local state
+     * Setting a status is idempotent, so OrderServiceCalls may retry a refused PATCH within the deadline.
+     */
+    private KitchenOrderResponse patchOrderStatus(Long orderId, String status, String userId, String tableId,
+                                                  Deadline deadline) {
         String url = orderServiceBaseUrl + "/" + orderId + "/status";
         UpdateOrderStatusRequest request = new UpdateOrderStatusRequest(status);
 
@@ -113,53 +289,76 @@ public class KitchenService {
 
         HttpEntity<UpdateOrderStatusRequest> requestEntity = new HttpEntity<>(request, headers);
 
+        logger.info("Calling Order Service to update order {} status to {}", orderId, status);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        ResponseEntity<KitchenOrderResponse> response;
         try {
-            logger.info("Calling Order Service to update order {} status to {}", orderId, status);
-            ResponseEntity<KitchenOrderResponse> response = restTemplate.exchange(
+            response = orderServiceCalls.idempotentWrite("status_update", deadline, () -> restTemplate.exchange(
                     url,
                     HttpMethod.PATCH,
                     requestEntity,
                     KitchenOrderResponse.class
-            );
-
-            KitchenOrderResponse updatedOrder = response.getBody();
-            if (updatedOrder == null) {
-                throw new RuntimeException("Order Service returned null response for orderId: " + orderId);
-            }
-
-            logger.info("Order {} status updated successfully to {} in Order Service", orderId, status);
-            return updatedOrder;
+            ));
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("kds.order_service.status_update")
+                    .description("Order Service PATCH /status duration")
+                    .tag("status", status)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
 
-        } catch (Exception e) {
-            logger.error("Failed to update order {} to {}: {}", orderId, status, e.getMessage());
-            throw new RuntimeException("Failed to update order status to " + status + ": " + e.getMessage(), e);
+        KitchenOrderResponse updatedOrder = response.getBody();
+        if (updatedOrder == null) {
+            throw new RuntimeException("Order Service returned null response for orderId: " + orderId);
         }
+
+        // Show the new status on displays now instead of after the next poll
+        activeOrderStore.writeThrough(updatedOrder);
+        return updatedOrder;
     }
 
     /**
-     * Publish order-ready event to Kafka
+     * Queue order-ready event for Kafka in the durable outbox
      */
     private void publishOrderReadyEvent(KitchenOrderResponse order) {
         try {
-            OrderReadyEvent event = new OrderReadyEvent(
-                    order.getId(),
-                    order.getTableId(),
-                    order.getItems().stream()
-                            .map(item -> new OrderReadyEvent.OrderItem(
-                                    item.getItemName(),
-                                    item.getQuantity()
-                            ))
-                            .collect(Collectors.toList()),
-                    LocalDateTime.now()
-            );
-
-            kafkaPublisherService.publishOrderReadyEvent(event);
-            logger.info("Kafka event published for order {}", order.getId());
+            OrderReadyEvent event = toOrderReadyEvent(order);
+
+            // Delivered to Kafka by the outbox relay, which retries until the broker acknowledges it
+            orderReadyOutbox.append(event);
+            logger.info("Kafka event queued in outbox for order {}", order.getId());
 
         } catch (Exception e) {
             // Log but don't fail the request - order is already READY in Order Service
-            logger.error("Failed to publish Kafka event for order {} (order is still READY): {}",
+            logger.error("Failed to queue Kafka event for order {} (order is still READY): {}",
                     order.getId(), e.getMessage());
         }
     }
+
+    /**
+     * Order-ready event for an order as Order Service returned it; missing items become an empty list
+     */
+    static OrderReadyEvent toOrderReadyEvent(KitchenOrderResponse order) {
+        List<KitchenOrderResponse.OrderItem> items = order.getItems();
+        if (items == null) {
+            logger.warn("Order Service returned READY order {} without items; queuing its event with none",
+                    order.getId());
+            items = List.of();
+        }
+        return new OrderReadyEvent(
+                order.getId(),
+                order.getTableId(),
+                items.stream()
+                        .filter(Objects::nonNull)
+                        .map(item -> new OrderReadyEvent.OrderItem(
+                                item.getItemName(),
+                                item.getQuantity()
+                        ))
+                        .collect(Collectors.toList()),
+                LocalDateTime.now()
+        );
+    }
 }
@@ -0,0 +1,31 @@
+package com.restaurant.kds_service.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process stand-in used when Redis leadership is off
+ *
+ * Every replica is its own leader and polls Order Service (the behaviour before leadership
+ * existed). Tests can step down and take over to drive the follower path.
+ */
+@Component
+@ConditionalOnExpression("!(${redis.enabled:false} and ${kds.leadership.enabled:false})")
+public class LocalPollingLeadership implements PollingLeadership {
+
+    private volatile boolean leader = true;
+
+    @Override
+    public boolean isLeader() {
+        return leader;
+    }
+
+    @Override
+    public long fencingToken() {
+        return 0;
+    }
+
+    public void setLeader(boolean leader) {
+        this.leader = leader;
+    }
+}
@@ -0,0 +1,67 @@
+package com.restaurant.kds_service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Early release of memory mappings
+ *
+ * The JDK only unmaps a MappedByteBuffer when it is garbage collected. The one way to do it sooner is
+ * sun.misc.Unsafe.invokeCleaner (jdk.unsupported); it is looked up once, and if it is missing or
+ * fails, that is logged once and the mapping is left to the garbage collector from then on.
+ */
+final class MappedBuffers {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedBuffers.class);
+
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+    private static final AtomicBoolean failureLogged = new AtomicBoolean();
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * Unmap the buffer now if the JVM allows it
+     * The caller must make sure nothing touches the buffer afterwards: access to an unmapped buffer
+     * crashes the JVM.
+     *
+     * @return false if the mapping stays until the buffer is garbage collected
+     */
+    static boolean unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return false;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            return true;
+        } catch (Throwable e) {
+            if (failureLogged.compareAndSet(false, true)) {
+                logger.warn("Could not unmap a mapped buffer, leaving mappings to the garbage collector: {}",
+                        e.toString());
+            }
+            return false;
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.info("Mapped buffers are released by the garbage collector only: {}", e.toString());
+            return null;
+        }
+    }
+}
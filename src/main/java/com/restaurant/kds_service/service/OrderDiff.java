@@ -0,0 +1,119 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Difference between the current active-order snapshot and a freshly polled one
+ * Orders are matched by id and compared by value
+ */
+public record OrderDiff(
+        List<KitchenOrderResponse> added,
+        List<KitchenOrderResponse> changed,
+        List<KitchenOrderResponse> removed) {
+
+    private static final OrderDiff EMPTY = new OrderDiff(List.of(), List.of(), List.of());
+
+    public static OrderDiff empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compute the changes needed to turn {@code current} into {@code incoming}
+     */
+    public static OrderDiff between(Map<Long, KitchenOrderResponse> current,
+                                    Collection<KitchenOrderResponse> incoming) {
+        Builder builder = new Builder(current::get);
+        incoming.forEach(builder::accept);
+        return builder.build(current, true);
+    }
+
+    /**
+     * Incremental diff for orders that arrive one at a time (streamed or paged polls)
+     *
+     * Each order is compared with the current state as it is accepted and kept only if it is new
+     * or changed, so an unchanged order can be dropped as soon as it has been parsed. Removals are
+     * worked out in {@link #build} from the ids seen. Thread-safe, so concurrently fetched pages
+     * can feed the same builder.
+     */
+    public static final class Builder {
+
+        private final Function<Long, KitchenOrderResponse> current;
+        private final List<KitchenOrderResponse> added = new ArrayList<>();
+        private final List<KitchenOrderResponse> changed = new ArrayList<>();
+        private final Set<Long> seen = new HashSet<>();
+
+        /**
+         * @param current lookup of the current order by id, null when there is none
+         */
+        public Builder(Function<Long, KitchenOrderResponse> current) {
+            this.current = current;
+        }
+
+        /**
+         * Add one incoming order; returns false for null orders and ids already seen
+         */
+        public boolean accept(KitchenOrderResponse order) {
+            if (order == null || order.getId() == null) {
+                return false;
+            }
+            // Looked up outside the monitor: the lookup may take the store's read lock
+            KitchenOrderResponse existing = current.apply(order.getId());
+            synchronized (this) {
+                if (!seen.add(order.getId())) {
+                    return false;
+                }
+                if (existing == null) {
+                    added.add(order);
+                } else if (!Objects.equals(existing, order)) {
+                    changed.add(order);
+                }
+                return true;
+            }
+        }
+
+        /**
+         * Number of distinct orders accepted so far
+         */
+        public synchronized int seen() {
+            return seen.size();
+        }
+
+        /**
+         * @param current         the current orders by id, to find removals in
+         * @param includeRemovals false when the incoming orders may be incomplete (e.g. pages shifted
+         *                        while they were fetched), so missing orders must not be removed
+         */
+        public synchronized OrderDiff build(Map<Long, KitchenOrderResponse> current, boolean includeRemovals) {
+            List<KitchenOrderResponse> removed = new ArrayList<>();
+            if (includeRemovals) {
+                for (Map.Entry<Long, KitchenOrderResponse> entry : current.entrySet()) {
+                    if (!seen.contains(entry.getKey())) {
+                        removed.add(entry.getValue());
+                    }
+                }
+            }
+
+            if (added.isEmpty() && changed.isEmpty() && removed.isEmpty()) {
+                return EMPTY;
+            }
+            return new OrderDiff(List.copyOf(added), List.copyOf(changed), List.copyOf(removed));
+        }
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + changed.size() + removed.size();
+    }
+}
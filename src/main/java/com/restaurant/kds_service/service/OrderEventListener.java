@@ -0,0 +1,104 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.OrderLifecycleEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event-driven ingestion: applies Order Service order events to the ActiveOrderStore as they arrive
+ *
+ * Order Service keys the topic by orderId, so all events for one order are delivered in order
+ * from a single partition; the store's per-order version check drops redeliveries and anything
+ * older than what it already applied. While this listener holds partitions the delta poll is
+ * skipped and only the full resync keeps running, as reconciliation for anything missed.
+ *
+ * Metrics: kds.ingestion.events (counter by result applied/ignored/invalid).
+ */
+@Component
+@ConditionalOnProperty(name = "ingestion.mode", havingValue = "events")
+public class OrderEventListener implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventListener.class);
+
+    private final ActiveOrderStore activeOrderStore;
+    private final Counter applied;
+    private final Counter ignored;
+    private final Counter invalid;
+    private final Set<TopicPartition> assigned = ConcurrentHashMap.newKeySet();
+    private volatile long connectedAt;
+
+    public OrderEventListener(ActiveOrderStore activeOrderStore, MeterRegistry meterRegistry) {
+        this.activeOrderStore = activeOrderStore;
+        this.applied = eventCounter(meterRegistry, "applied");
+        this.ignored = eventCounter(meterRegistry, "ignored");
+        this.invalid = eventCounter(meterRegistry, "invalid");
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("kds.ingestion.events")
+                .description("Order events consumed from Kafka by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            topics = "${kafka.topic.order-events:order-events}",
+            groupId = "#{@orderEventGroupId}",
+            containerFactory = "orderEventListenerContainerFactory")
+    public void onOrderEvent(ConsumerRecord<String, OrderLifecycleEvent> record) {
+        OrderLifecycleEvent event = record.value();
+        if (event == null || event.getType() == null || event.getOrderId() == null) {
+            invalid.increment();
+            logger.warn("Skipping undecodable order event at {}-{}@{}", record.topic(), record.partition(),
+                    record.offset());
+            return;
+        }
+
+        boolean accepted = activeOrderStore.applyEvent(event.getOrderId(), event.getVersion(), event.getOrder(),
+                event.getStatus());
+        (accepted ? applied : ignored).increment();
+        logger.debug("{} {} for order {} (version {})", accepted ? "Applied" : "Ignored", event.getType(),
+                event.getOrderId(), event.getVersion());
+    }
+
+    /**
+     * True while this replica is assigned partitions of the order-event topic
+     */
+    public boolean isConnected() {
+        return !assigned.isEmpty();
+    }
+
+    /**
+     * Epoch millis at which the current assignment started; events from before it were not consumed
+     */
+    public long connectedAt() {
+        return connectedAt;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (assigned.isEmpty()) {
+            connectedAt = System.currentTimeMillis();
+        }
+        assigned.addAll(assignments.keySet());
+        logger.info("Consuming order events from {}", assignments.keySet());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        assigned.removeAll(partitions);
+    }
+}
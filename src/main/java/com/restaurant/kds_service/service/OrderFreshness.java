@@ -0,0 +1,36 @@
+package com.restaurant.kds_service.service;
+
+/**
+ * How current the active orders are, measured from when they were last confirmed by Order Service
+ *
+ * FRESH up to the soft TTL, STALE (still served, revalidation under way) up to the hard TTL,
+ * EXPIRED beyond it - typically because Order Service has been unreachable for a while.
+ *
+ * @param confirmedAt epoch millis of the last confirmation (start of the last applied poll), 0 if there was none
+ * @param ageMs       milliseconds since confirmedAt
+ */
+public record OrderFreshness(State state, long confirmedAt, long ageMs, long softTtlMs, long hardTtlMs) {
+
+    public enum State {
+        FRESH,
+        STALE,
+        EXPIRED
+    }
+
+    public static OrderFreshness of(long confirmedAt, long now, long softTtlMs, long hardTtlMs) {
+        long ageMs = confirmedAt > 0 ? Math.max(0, now - confirmedAt) : Long.MAX_VALUE;
+        State state = ageMs <= softTtlMs ? State.FRESH : ageMs <= hardTtlMs ? State.STALE : State.EXPIRED;
+        return new OrderFreshness(state, confirmedAt, ageMs, softTtlMs, hardTtlMs);
+    }
+
+    public boolean isFresh() {
+        return state == State.FRESH;
+    }
+
+    /**
+     * Age in whole seconds, as sent in the Age header (capped at the hard TTL + 1s when never confirmed)
+     */
+    public long ageSeconds() {
+        return (confirmedAt > 0 ? ageMs : hardTtlMs + 1000) / 1000;
+    }
+}
@@ -1,130 +1,393 @@
 package com.restaurant.kds_service.service;
 
-import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * Service responsible for polling Order Service at configurable interval
  * Order Service is the SOURCE OF TRUTH
  * Redis is optional cache ONLY
+ *
+ * Polling runs in delta mode by default: requests are conditional (If-None-Match),
+ * a 304 leaves the snapshot untouched, and a changed payload is diffed against the
+ * current orders so only added/changed/removed entries are applied to the ActiveOrderStore.
+ * A full unconditional resync runs on a slower interval to repair any drift.
+ *
+ * The /active response is streamed (ActiveOrdersFetcher): orders are parsed one at a time and
+ * diffed against the store as they arrive, so only changed orders are held, and with
+ * polling.page-size set the list is fetched in pages, concurrently where Order Service reports
+ * the total.
+ *
+ * With several replicas only the PollingLeadership leader calls Order Service. Followers apply
+ * the snapshot the leader publishes to Redis on the same schedule, so upstream load does not
+ * grow with the replica count. A follower's own status updates stay protected until the shared
+ * snapshot comes from a leader poll that started after them (compared by wall clock, so replica
+ * clocks are assumed to be roughly in sync).
+ *
+ * With ingestion.mode=events, order events from Kafka (OrderEventListener) keep the store current:
+ * once a poll that started after the listener got its partitions has been applied, the delta poll
+ * is skipped and the full resync stays on as anti-entropy. If the listener loses its partitions,
+ * delta polling resumes on its own.
+ *
+ * The delta poll runs on AdaptivePollSchedule rather than a fixed delay: faster while orders are
+ * changing, slower while the kitchen is quiet, and backed off by its circuit breaker while Order
+ * Service keeps failing (the resync is skipped too while the breaker is open).
+ *
+ * Reads ask for freshness(): how long ago the active orders were confirmed by a poll (or "now"
+ * while order events are flowing), classified against freshness.soft-ttl-ms / hard-ttl-ms. A read
+ * that finds them past the soft TTL starts one background revalidation (stale-while-revalidate)
+ * unless one is already running or the circuit breaker is open; the read itself never waits.
+ *
+ * Metrics: kds.poll (timer by mode delta/full/follower and outcome), kds.active_orders (gauge),
+ * kds.snapshot.age and kds.poll.last_success.age (gauges, seconds).
  */
 @Service
-public class OrderPollingService {
+public class OrderPollingService implements SchedulingConfigurer {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderPollingService.class);
-    private static final String REDIS_KEY = "kds:active-orders";
 
-    private final RestTemplate restTemplate;
-    private final String orderServiceBaseUrl;
-    private final boolean redisEnabled;
+    private final ActiveOrderStore activeOrderStore;
+    private final RedisOrderCache redisOrderCache;
+    private final PollingLeadership pollingLeadership;
+    private final AdaptivePollSchedule pollSchedule;
     private final long pollingIntervalMs;
+    private final boolean deltaEnabled;
+    private final ActiveOrdersFetcher fetcher;
+    private final long softTtlMs;
+    private final long hardTtlMs;
+    private final MeterRegistry meterRegistry;
 
     @Autowired(required = false)
-    private RedisTemplate<String, List<KitchenOrderResponse>> redisTemplate;
+    private OrderEventListener orderEventListener;
 
-    // In-memory backup (always maintained regardless of Redis)
-    private final List<KitchenOrderResponse> inMemoryOrders = new CopyOnWriteArrayList<>();
+    // Runs concurrent page fetches; without it pages are fetched on the polling thread
+    @Autowired(required = false)
+    @Qualifier("orderServiceExecutor")
+    private AsyncTaskExecutor orderServiceExecutor;
+
+    // Runs read-triggered revalidations without ever holding up the read (orderServiceExecutor can
+    // block its caller under virtual threads); without it stale reads wait for the next scheduled poll
+    @Autowired(required = false)
+    @Qualifier("revalidationExecutor")
+    private TaskExecutor revalidationExecutor;
+
+    // Times each /active attempt and hedges unpaged reads (order-service.hedge.*)
+    @Autowired(required = false)
+    private OrderServiceCalls orderServiceCalls;
+
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    private volatile Instant lastSuccessfulPoll = Instant.now();
+
+    // Epoch millis at which the last successfully applied poll (or leader poll, on followers) started
+    private volatile long lastPollStartedAt;
+
+    // Validator returned by Order Service for the last applied /active payload
+    private volatile String lastEtag;
+
+    private final Object pollLock = new Object();
+
+    // Follower bookkeeping (guarded by pollLock): store sequence at each sync, by wall-clock time
+    private final NavigableMap<Long, Long> syncSequences = new TreeMap<>();
+    private boolean wasLeader = true;
 
     public OrderPollingService(
             RestTemplate restTemplate,
+            ActiveOrderStore activeOrderStore,
+            RedisOrderCache redisOrderCache,
+            PollingLeadership pollingLeadership,
+            AdaptivePollSchedule pollSchedule,
             @Value("${order-service.base-url}") String orderServiceBaseUrl,
-            @Value("${redis.enabled:false}") boolean redisEnabled,
-            @Value("${polling.interval-ms:3000}") long pollingIntervalMs) {
-        this.restTemplate = restTemplate;
-        this.orderServiceBaseUrl = orderServiceBaseUrl;
-        this.redisEnabled = redisEnabled;
+            @Value("${polling.interval-ms:3000}") long pollingIntervalMs,
+            @Value("${polling.delta.enabled:true}") boolean deltaEnabled,
+            @Value("${polling.page-size:0}") int pageSize,
+            @Value("${polling.page-concurrency:4}") int pageConcurrency,
+            @Value("${freshness.soft-ttl-ms:10000}") long softTtlMs,
+            @Value("${freshness.hard-ttl-ms:120000}") long hardTtlMs,
+            MeterRegistry meterRegistry) {
+        this.activeOrderStore = activeOrderStore;
+        this.redisOrderCache = redisOrderCache;
+        this.pollingLeadership = pollingLeadership;
+        this.pollSchedule = pollSchedule;
         this.pollingIntervalMs = pollingIntervalMs;
-        logger.info("OrderPollingService initialized - polling interval: {}ms ({}s)",
-                pollingIntervalMs, pollingIntervalMs / 1000.0);
+        this.deltaEnabled = deltaEnabled;
+        this.softTtlMs = softTtlMs;
+        this.hardTtlMs = Math.max(softTtlMs, hardTtlMs);
+        this.fetcher = new ActiveOrdersFetcher(restTemplate, orderServiceBaseUrl + "/active", pageSize, pageConcurrency);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("kds.active_orders", activeOrderStore, ActiveOrderStore::size)
+                .description("Orders currently shown on kitchen displays")
+                .register(meterRegistry);
+        Gauge.builder("kds.snapshot.age", activeOrderStore,
+                        store -> secondsSince(store.getSnapshot().getBuiltAt()))
+                .description("Seconds since the active-order snapshot last changed")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("kds.poll.last_success.age", this, service -> secondsSince(service.lastSuccessfulPoll))
+                .description("Seconds since Order Service last answered a poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        logger.info("OrderPollingService initialized - polling interval: {}ms ({}s), delta mode: {}, page size: {}",
+                pollingIntervalMs, pollingIntervalMs / 1000.0, deltaEnabled, pageSize > 0 ? pageSize : "unpaged");
     }
 
     /**
-     * Poll Order Service at configurable interval (default: 3 seconds)
-     * This is the ONLY way data enters the KDS system
+     * Registers the delta poll with a delay taken from AdaptivePollSchedule after every run
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addTriggerTask(this::pollActiveOrders, context -> {
+            Instant lastCompletion = context.lastCompletion();
+            return (lastCompletion != null ? lastCompletion : Instant.now()).plusMillis(pollSchedule.nextDelayMs());
+        });
+    }
+
+    /**
+     * Poll Order Service at an adaptive interval (starting at polling.interval-ms, default: 3 seconds)
+     * The main way data enters the KDS system, unless order events are being consumed
      */
-    @Scheduled(fixedDelayString = "${polling.interval-ms:3000}")
     public void pollActiveOrders() {
+        if (orderEventListener != null && orderEventListener.isConnected()
+                && lastPollStartedAt >= orderEventListener.connectedAt()) {
+            logger.debug("Order events connected - skipping delta poll");
+            return;
+        }
         logger.debug("Polling Order Service for active orders...");
+        fetchAndApply(deltaEnabled);
+    }
+
+    /**
+     * Unconditional full resync on a slower interval (default: 60 seconds)
+     * Safety net for delta mode in case an upstream validator is reused or lost, and the
+     * reconciliation pass for event-driven ingestion
+     */
+    @Scheduled(
+            initialDelayString = "${polling.full-resync-interval-ms:60000}",
+            fixedDelayString = "${polling.full-resync-interval-ms:60000}")
+    public void resyncActiveOrders() {
+        logger.debug("Running full resync of active orders...");
+        fetchAndApply(false);
+    }
+
+    /**
+     * How current the active orders are; past the soft TTL this also starts a background revalidation
+     */
+    public OrderFreshness freshness() {
+        long now = System.currentTimeMillis();
+        long confirmedAt = lastPollStartedAt;
+        if (orderEventListener != null && orderEventListener.isConnected()
+                && confirmedAt >= orderEventListener.connectedAt()) {
+            // Reconciled with Order Service since the consumer connected, and events keep it current
+            confirmedAt = now;
+        }
+        OrderFreshness freshness = OrderFreshness.of(confirmedAt, now, softTtlMs, hardTtlMs);
+        if (!freshness.isFresh()) {
+            revalidateInBackground();
+        }
+        return freshness;
+    }
 
+    private void revalidateInBackground() {
+        if (revalidationExecutor == null || pollSchedule.state() == AdaptivePollSchedule.BreakerState.OPEN
+                || !revalidating.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            String url = orderServiceBaseUrl + "/active";
+            revalidationExecutor.execute(() -> {
+                try {
+                    logger.debug("Active orders past their soft TTL - revalidating");
+                    fetchAndApply(deltaEnabled);
+                } finally {
+                    revalidating.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor busy or shutting down: the scheduled poll will catch up
+            revalidating.set(false);
+            logger.debug("Could not start revalidation: {}", e.getMessage());
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+    private record Fetch(OrderDiff.Builder incoming, ActiveOrdersFetcher.Result result) {
+    }
 
-            ResponseEntity<List<KitchenOrderResponse>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<List<KitchenOrderResponse>>() {}
-            );
+    /**
+     * Read /active into a new diff builder - through OrderServiceCalls when unpaged, so it can be hedged
+     * (each hedged attempt has a builder of its own). Paged reads already fetch pages in parallel.
+     */
+    private Fetch fetch(String etag) {
+        Supplier<Fetch> read = () -> {
+            OrderDiff.Builder incoming = activeOrderStore.diffBuilder();
+            return new Fetch(incoming, fetcher.fetch(etag, incoming, orderServiceExecutor));
+        };
+        return orderServiceCalls != null && !fetcher.isPaged()
+                ? orderServiceCalls.read("active", Deadline.NONE, read)
+                : read.get();
+    }
 
-            List<KitchenOrderResponse> activeOrders = response.getBody();
-            if (activeOrders == null) {
-                activeOrders = new ArrayList<>();
+    private void fetchAndApply(boolean conditional) {
+        synchronized (pollLock) {
+            if (!pollingLeadership.isLeader()) {
+                wasLeader = false;
+                syncFromLeader();
+                return;
+            }
+            if (!wasLeader) {
+                // The store followed someone else's polls: start over with an unconditional fetch
+                logger.info("Took over polling of Order Service");
+                lastEtag = null;
+                conditional = false;
+                wasLeader = true;
+            }
+            if (!pollSchedule.allowRequest()) {
+                logger.debug("Order Service circuit open - skipping poll, keeping last known data");
+                stopPollTimer(Timer.start(meterRegistry), conditional ? "delta" : "full", "circuit_open");
+                return;
             }
 
-            logger.info("Polled {} active orders from Order Service", activeOrders.size());
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                String etag = conditional ? lastEtag : null;
 
-            // Update in-memory cache (always)
-            inMemoryOrders.clear();
-            inMemoryOrders.addAll(activeOrders);
+                // Status updates written through after this point win over whatever this poll returns
+                long pollSequence = activeOrderStore.currentSequence();
+                long pollStartedAt = System.currentTimeMillis();
 
-            // Update Redis cache if enabled
-            if (redisEnabled && redisTemplate != null) {
-                try {
-                    redisTemplate.opsForValue().set(REDIS_KEY, activeOrders, 10, TimeUnit.SECONDS);
-                    logger.debug("Updated Redis cache with {} orders", activeOrders.size());
-                } catch (Exception e) {
-                    logger.warn("Failed to update Redis cache (non-critical): {}", e.getMessage());
+                Fetch fetch = fetch(etag);
+                OrderDiff.Builder incoming = fetch.incoming();
+                ActiveOrdersFetcher.Result result = fetch.result();
+
+                if (result.notModified()) {
+                    logger.debug("Active orders not modified since last poll (ETag: {})", etag);
+                    outcome = "not_modified";
+                    pollSchedule.recordSuccess(false);
+                    lastSuccessfulPoll = Instant.now();
+                    lastPollStartedAt = pollStartedAt;
+                    redisOrderCache.pollStarted(pollStartedAt);
+                    redisOrderCache.refresh();
+                    return;
                 }
-            }
 
-        } catch (Exception e) {
-            logger.error("Failed to poll Order Service: {}", e.getMessage());
-            logger.debug("Full error:", e);
-            // KDS continues to operate with last known data
+                OrderDiff diff = activeOrderStore.diff(incoming, result.complete());
+                lastEtag = result.etag();
+                lastSuccessfulPoll = Instant.now();
+                lastPollStartedAt = pollStartedAt;
+                redisOrderCache.pollStarted(pollStartedAt);
+
+                if (diff.isEmpty()) {
+                    logger.debug("Polled {} active orders - no changes", result.orders());
+                    outcome = "unchanged";
+                    pollSchedule.recordSuccess(false);
+                    redisOrderCache.refresh();
+                    return;
+                }
+
+                logger.info("Polled {} active orders from Order Service (added: {}, changed: {}, removed: {})",
+                        result.orders(), diff.added().size(), diff.changed().size(), diff.removed().size());
+
+                // Update in-memory store (always) - listeners refresh Redis and the SSE stream
+                activeOrderStore.apply(diff, ActiveOrdersChangedEvent.Source.POLL, pollSequence);
+                outcome = "changed";
+                pollSchedule.recordSuccess(true);
+
+            } catch (Exception e) {
+                if (pollSchedule.recordFailure()) {
+                    logger.error("Failed to poll Order Service {} times in a row - circuit open, retrying in {}ms: {}",
+                            pollSchedule.consecutiveFailures(), pollSchedule.backoffMs(), e.getMessage());
+                } else {
+                    logger.error("Failed to poll Order Service: {}", e.getMessage());
+                }
+                logger.debug("Full error:", e);
+                // KDS continues to operate with last known data
+            } finally {
+                stopPollTimer(sample, conditional ? "delta" : "full", outcome);
+            }
         }
     }
 
     /**
-     * Get active orders from cache
-     * Priority: Redis (if enabled) → In-memory → Empty list
+     * Follower path: apply the snapshot the leader last published instead of calling Order Service
+     * Caller must hold pollLock.
      */
-    public List<KitchenOrderResponse> getActiveOrders() {
-        // Try Redis first if enabled
-        if (redisEnabled && redisTemplate != null) {
-            try {
-                List<KitchenOrderResponse> cachedOrders = redisTemplate.opsForValue().get(REDIS_KEY);
-                if (cachedOrders != null) {
-                    logger.debug("Serving {} orders from Redis cache", cachedOrders.size());
-                    return cachedOrders;
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to read from Redis (falling back to in-memory): {}", e.getMessage());
+    private void syncFromLeader() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            syncSequences.put(System.currentTimeMillis(), activeOrderStore.currentSequence());
+            if (syncSequences.size() > 1000) {
+                syncSequences.pollFirstEntry();
+            }
+
+            RedisOrderCache.SharedSnapshot shared = redisOrderCache.readShared();
+            if (shared == null) {
+                logger.debug("No shared snapshot from the polling leader - keeping last known data");
+                outcome = "missing";
+                return;
+            }
+            if (shared.polledAt() > 0) {
+                lastSuccessfulPoll = Instant.ofEpochMilli(shared.polledAt());
+                lastPollStartedAt = shared.polledAt();
+            }
+
+            // Local status updates made before the leader's poll started are already in the shared list
+            Map.Entry<Long, Long> seen = syncSequences.floorEntry(shared.polledAt());
+            long basedOnSequence = 0;
+            if (seen != null) {
+                basedOnSequence = seen.getValue();
+                syncSequences.headMap(seen.getKey(), false).clear();
             }
+
+            OrderDiff diff = activeOrderStore.diff(shared.orders());
+            if (diff.isEmpty()) {
+                outcome = "unchanged";
+                return;
+            }
+            logger.info("Synced {} active orders from the polling leader (added: {}, changed: {}, removed: {})",
+                    shared.orders().size(), diff.added().size(), diff.changed().size(), diff.removed().size());
+            activeOrderStore.apply(diff, ActiveOrdersChangedEvent.Source.POLL, basedOnSequence);
+            outcome = "changed";
+        } catch (Exception e) {
+            logger.error("Failed to sync from the polling leader: {}", e.getMessage());
+            logger.debug("Full error:", e);
+        } finally {
+            stopPollTimer(sample, "follower", outcome);
         }
+    }
 
-        // Fallback to in-memory
-        logger.debug("Serving {} orders from in-memory cache", inMemoryOrders.size());
-        return new ArrayList<>(inMemoryOrders);
+    private void stopPollTimer(Timer.Sample sample, String mode, String outcome) {
+        sample.stop(Timer.builder("kds.poll")
+                .description("Order Service poll duration")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
     }
-}
 
+    private static double secondsSince(Instant instant) {
+        return instant == null ? 0 : Duration.between(instant, Instant.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,421 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable outbox for order-ready events
+ *
+ * Events are appended to memory-mapped, fixed-size segment files on local disk and
+ * acknowledged only once Kafka has accepted them. A background relay thread drains the
+ * outbox in append order, retrying with exponential backoff while Kafka is unavailable.
+ * Deduplication is by outbox sequence, not by order: every appended READY transition is
+ * published once (an order sent back and marked READY again is a new event), and a retry
+ * after a partly failed batch skips the records Kafka already accepted. The acknowledged
+ * sequence advances over every published prefix, so on startup - when every segment is
+ * scanned and anything after it is replayed - only records from the failed tail of a batch
+ * (or sent just before a crash) can go out twice. KitchenService appends from inside its
+ * single-flight transition, so a double tap or a batch entry racing a tablet tap for the same
+ * order appends once, and a retried Idempotency-Key never reaches the outbox.
+ *
+ * Record layout: int payloadLength | long sequence | int crc32(sequence, payload) | payload.
+ * The length is written last, so a record torn by a crash is ignored on replay.
+ */
+@Service
+public class OrderReadyOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderReadyOutbox.class);
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String ACK_FILE = "ack";
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final KafkaPublisherService kafkaPublisherService;
+    private final JsonMapper jsonMapper;
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final long relayIntervalMs;
+    private final int relayBatchSize;
+    private final long sendTimeoutMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    // Guards the segment files, the write position and nextSequence
+    private final Object writeLock = new Object();
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private Segment activeSegment;
+    private long nextSequence = 1;
+
+    // Appended but not yet acknowledged, in sequence order
+    private final ConcurrentSkipListMap<Long, OrderReadyEvent> pending = new ConcurrentSkipListMap<>();
+    private MappedByteBuffer ackBuffer;
+    private long ackedSequence;
+
+    // Relay state, only touched by the relay thread
+    // Sequences Kafka accepted beyond ackedSequence (behind a failed send in the same batch)
+    private final NavigableSet<Long> publishedUnacked = new TreeSet<>();
+    private long backoffMs;
+    private long nextAttemptAt;
+
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private ScheduledExecutorService relayExecutor;
+
+    public OrderReadyOutbox(
+            KafkaPublisherService kafkaPublisherService,
+            JsonMapper jsonMapper,
+            @Value("${kds.outbox.dir:./data/outbox}") String directory,
+            @Value("${kds.outbox.segment-bytes:1048576}") int segmentBytes,
+            @Value("${kds.outbox.fsync:false}") boolean fsync,
+            @Value("${kds.outbox.relay-interval-ms:200}") long relayIntervalMs,
+            @Value("${kds.outbox.relay-batch-size:500}") int relayBatchSize,
+            @Value("${kds.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${kds.outbox.initial-backoff-ms:500}") long initialBackoffMs,
+            @Value("${kds.outbox.max-backoff-ms:30000}") long maxBackoffMs) {
+        this.kafkaPublisherService = kafkaPublisherService;
+        this.jsonMapper = jsonMapper;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.relayIntervalMs = relayIntervalMs;
+        this.relayBatchSize = relayBatchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMs = initialBackoffMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        open();
+        relayExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relayExecutor.scheduleWithFixedDelay(this::relaySafely, 0, relayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open (or create) the outbox directory and load every unacknowledged event
+     */
+    void open() {
+        try {
+            Files.createDirectories(directory);
+            ackBuffer = map(directory.resolve(ACK_FILE), Long.BYTES);
+            ackedSequence = ackBuffer.getLong(0);
+            nextSequence = ackedSequence + 1;
+
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+            }
+            for (Path file : files) {
+                Segment segment = replay(file);
+                segments.put(segment.firstSequence, segment);
+                nextSequence = Math.max(nextSequence, segment.lastSequence + 1);
+            }
+            activeSegment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            deleteAcknowledgedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open order-ready outbox at " + directory, e);
+        }
+        logger.info("Order-ready outbox opened at {} - {} unacknowledged events to replay (acked up to {})",
+                directory.toAbsolutePath(), pending.size(), ackedSequence);
+    }
+
+    /**
+     * Durably record an event for delivery to Kafka
+     * Falls back to a direct send if the outbox cannot be written.
+     */
+    public void append(OrderReadyEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * Durably record several events with a single write lock (and a single fsync when enabled)
+     */
+    public void appendAll(List<OrderReadyEvent> events) {
+        try {
+            synchronized (writeLock) {
+                for (OrderReadyEvent event : events) {
+                    long sequence = nextSequence;
+                    write(sequence, jsonMapper.writeValueAsBytes(event));
+                    nextSequence++;
+                    pending.put(sequence, event);
+                }
+                if (fsync) {
+                    activeSegment.buffer.force();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to write {} order-ready events to outbox, publishing directly: {}",
+                    events.size(), e.getMessage(), e);
+            kafkaPublisherService.publishOrderReadyEvents(events);
+            return;
+        }
+        logger.debug("Appended {} order-ready events to outbox", events.size());
+        wakeUp();
+    }
+
+    /**
+     * Number of events waiting for a Kafka acknowledgement
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    /**
+     * Send the next batch of pending events to Kafka and acknowledge what was accepted
+     * Runs on the relay thread; package-private so tests can drive it directly.
+     */
+    void relay() {
+        wakeupPending.set(false);
+        if (pending.isEmpty() || System.currentTimeMillis() < nextAttemptAt) {
+            return;
+        }
+
+        List<Map.Entry<Long, OrderReadyEvent>> batch = new ArrayList<>();
+        Iterator<Map.Entry<Long, OrderReadyEvent>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < relayBatchSize) {
+            batch.add(iterator.next());
+        }
+
+        // Records Kafka already accepted on an earlier, partly failed attempt are not sent again
+        List<Long> sequences = new ArrayList<>();
+        List<OrderReadyEvent> toSend = new ArrayList<>();
+        for (Map.Entry<Long, OrderReadyEvent> entry : batch) {
+            if (!publishedUnacked.contains(entry.getKey())) {
+                sequences.add(entry.getKey());
+                toSend.add(entry.getValue());
+            }
+        }
+        int skipped = batch.size() - toSend.size();
+
+        List<? extends CompletableFuture<?>> futures = toSend.isEmpty()
+                ? List.of()
+                : kafkaPublisherService.publishOrderReadyEvents(toSend);
+        boolean allSent = true;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                publishedUnacked.add(sequences.get(i));
+            } catch (Exception e) {
+                allSent = false;
+            }
+        }
+
+        // Acknowledge up to the first record that is still unpublished
+        long publishedUpTo = -1;
+        for (Map.Entry<Long, OrderReadyEvent> entry : batch) {
+            if (!publishedUnacked.contains(entry.getKey())) {
+                break;
+            }
+            publishedUpTo = entry.getKey();
+        }
+        if (publishedUpTo >= 0) {
+            acknowledge(publishedUpTo);
+            publishedUnacked.headSet(publishedUpTo, true).clear();
+        }
+
+        if (!allSent) {
+            nextAttemptAt = System.currentTimeMillis() + backoffMs;
+            logger.warn("Outbox relay could not publish all of {} order-ready events, retrying in {}ms ({} pending)",
+                    toSend.size(), backoffMs, pending.size());
+            backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            return;
+        }
+
+        backoffMs = initialBackoffMs;
+        nextAttemptAt = 0;
+        logger.debug("Outbox relay published {} order-ready events ({} already sent), acked up to {}",
+                toSend.size(), skipped, publishedUpTo);
+    }
+
+    private void relaySafely() {
+        try {
+            relay();
+        } catch (Exception e) {
+            logger.error("Outbox relay failed", e);
+        }
+    }
+
+    private void wakeUp() {
+        if (relayExecutor != null && wakeupPending.compareAndSet(false, true)) {
+            relayExecutor.execute(this::relaySafely);
+        }
+    }
+
+    private void acknowledge(long sequence) {
+        synchronized (writeLock) {
+            ackedSequence = sequence;
+            ackBuffer.putLong(0, sequence);
+            if (fsync) {
+                ackBuffer.force();
+            }
+            pending.headMap(sequence, true).clear();
+            deleteAcknowledgedSegments();
+        }
+    }
+
+    /**
+     * Write one record into the active segment, rotating to a new segment when it is full
+     */
+    private void write(long sequence, byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (activeSegment == null || activeSegment.buffer.capacity() - activeSegment.position < recordBytes) {
+            if (fsync && activeSegment != null) {
+                activeSegment.buffer.force();
+            }
+            Path file = directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+            activeSegment = new Segment(file, sequence, map(file, Math.max(segmentBytes, recordBytes)));
+            segments.put(sequence, activeSegment);
+        }
+
+        MappedByteBuffer buffer = activeSegment.buffer;
+        int position = activeSegment.position;
+        buffer.putLong(position + Integer.BYTES, sequence);
+        buffer.putInt(position + Integer.BYTES + Long.BYTES, checksum(sequence, payload));
+        buffer.put(position + HEADER_BYTES, payload);
+        buffer.putInt(position, payload.length);
+
+        activeSegment.position = position + recordBytes;
+        activeSegment.lastSequence = sequence;
+    }
+
+    /**
+     * Scan a segment file, queueing every intact record that has not been acknowledged
+     */
+    private Segment replay(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        Segment segment = new Segment(file, firstSequence, map(file, (int) Math.max(Files.size(file), HEADER_BYTES)));
+        MappedByteBuffer buffer = segment.buffer;
+
+        int position = 0;
+        while (buffer.capacity() - position >= HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES) {
+                break;
+            }
+            long sequence = buffer.getLong(position + Integer.BYTES);
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (buffer.getInt(position + Integer.BYTES + Long.BYTES) != checksum(sequence, payload)) {
+                logger.warn("Outbox segment {} has a corrupt record at offset {}, ignoring the rest", file, position);
+                break;
+            }
+            if (sequence > ackedSequence) {
+                pending.put(sequence, jsonMapper.readValue(payload, OrderReadyEvent.class));
+            }
+            segment.lastSequence = sequence;
+            position += HEADER_BYTES + length;
+        }
+        segment.position = position;
+        return segment;
+    }
+
+    /**
+     * Unmap and delete fully acknowledged segments
+     * The mapping is released first where MappedBuffers can: a file that is still mapped cannot be
+     * deleted on Windows. A segment that still cannot be deleted is dropped anyway; as it holds only
+     * acknowledged records, the next open() deletes it.
+     */
+    private void deleteAcknowledgedSegments() {
+        Iterator<Segment> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment == activeSegment || segment.lastSequence > ackedSequence) {
+                return;
+            }
+            iterator.remove();
+            MappedBuffers.unmap(segment.buffer);
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                logger.warn("Failed to delete acknowledged outbox segment {}: {}", segment.file, e.getMessage());
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (relayExecutor != null) {
+            relayExecutor.shutdownNow();
+        }
+        synchronized (writeLock) {
+            if (activeSegment != null) {
+                activeSegment.buffer.force();
+            }
+            if (ackBuffer != null) {
+                ackBuffer.force();
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long lastSequence;
+
+        private Segment(Path file, long firstSequence, MappedByteBuffer buffer) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+    }
+}
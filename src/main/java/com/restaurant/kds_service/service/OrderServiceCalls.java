@@ -0,0 +1,272 @@
+package com.restaurant.kds_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Attempts at Order Service calls, bounded by the request's Deadline
+ *
+ * Reads can be hedged (order-service.hedge.*): when the first attempt has not answered after
+ * delay-ms a second, identical one is sent and whichever succeeds first is used. The slower one
+ * is left to finish within the client timeouts and recorded as abandoned. Attempts run on their
+ * own small executor (order-service.hedge.max-concurrency); when it is full the read runs
+ * unhedged on the calling thread rather than waiting behind other work.
+ *
+ * Idempotent writes (status PATCH) get at most one retry (order-service.retry.*), and only when
+ * Order Service has shown the first attempt was not processed: the connection could not be made
+ * or leased, or it answered 429/503. Its Retry-After is honored when it fits in the budget. A
+ * read timeout is never retried - the update may have been applied, and the budget is spent.
+ *
+ * Every attempt is timed as kds.order_service.attempt{operation, attempt=primary|hedge|retry,
+ * outcome=success|error|timeout|abandoned}, so tail latency is visible per attempt.
+ */
+@Component
+public class OrderServiceCalls {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderServiceCalls.class);
+
+    // A response timeout derived from the deadline may fire a little before it runs out
+    private static final long DEADLINE_SLACK_MS = 50;
+
+    private final AsyncTaskExecutor executor;
+    private final boolean hedgeEnabled;
+    private final long hedgeDelayMs;
+    private final boolean retryEnabled;
+    private final long retryBackoffMs;
+    private final long retryMinBudgetMs;
+    private final MeterRegistry meterRegistry;
+
+    public OrderServiceCalls(
+            @Qualifier("orderServiceHedgeExecutor") AsyncTaskExecutor executor,
+            @Value("${order-service.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${order-service.hedge.delay-ms:500}") long hedgeDelayMs,
+            @Value("${order-service.retry.enabled:true}") boolean retryEnabled,
+            @Value("${order-service.retry.backoff-ms:100}") long retryBackoffMs,
+            @Value("${order-service.retry.min-budget-ms:250}") long retryMinBudgetMs,
+            MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeDelayMs = hedgeDelayMs;
+        this.retryEnabled = retryEnabled;
+        this.retryBackoffMs = retryBackoffMs;
+        this.retryMinBudgetMs = retryMinBudgetMs;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * A read, hedged when enabled; the answer of the first attempt that succeeds
+     *
+     * @throws ResponseStatusException 504 when the deadline runs out first
+     */
+    public <T> T read(String operation, Deadline deadline, Supplier<T> call) {
+        if (!hedgeEnabled || executor == null) {
+            return attempt(operation, "primary", deadline, call, null);
+        }
+
+        AtomicBoolean answered = new AtomicBoolean();
+        CompletableFuture<T> primary;
+        try {
+            primary = executor.submitCompletable(() -> attempt(operation, "primary", deadline, call, answered));
+        } catch (TaskRejectedException e) {
+            logger.debug("Hedge executor full - calling Order Service {} unhedged", operation);
+            return attempt(operation, "primary", deadline, call, null);
+        }
+        try {
+            return primary.get(Math.min(hedgeDelayMs, deadline.remainingMs()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Slower than the hedge delay: fall through and race a second attempt
+        } catch (ExecutionException e) {
+            // A fast failure is not a tail-latency problem, so it is not hedged
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling Order Service (" + operation + ")", e);
+        }
+        if (deadline.isExpired()) {
+            throw deadlineExceeded(operation, null);
+        }
+
+        CompletableFuture<T> hedge;
+        try {
+            hedge = executor.submitCompletable(() -> attempt(operation, "hedge", deadline, call, answered));
+        } catch (TaskRejectedException e) {
+            logger.debug("Hedge executor full - waiting for the Order Service {} primary", operation);
+            return await(operation, deadline, primary);
+        }
+        logger.debug("Order Service {} slower than {}ms - sent a hedged request", operation, hedgeDelayMs);
+        return await(operation, deadline, firstSuccess(primary, hedge));
+    }
+
+    /**
+     * An idempotent write, retried once when the first attempt was safely refused
+     *
+     * @throws ResponseStatusException 504 when the deadline runs out first
+     */
+    public <T> T idempotentWrite(String operation, Deadline deadline, Supplier<T> call) {
+        try {
+            return attempt(operation, "primary", deadline, call, null);
+        } catch (RuntimeException e) {
+            long backoffMs = retryBackoffMs(e);
+            if (!retryEnabled || backoffMs < 0 || deadline.remainingMs() < backoffMs + retryMinBudgetMs) {
+                throw e;
+            }
+            logger.info("Order Service refused {} ({}) - retrying in {}ms ({})",
+                    operation, e.getMessage(), backoffMs, deadline);
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            return attempt(operation, "retry", deadline, call, null);
+        }
+    }
+
+    /**
+     * One timed attempt with the deadline bound to this thread
+     *
+     * @param answered shared by hedged attempts: set by the first success, later ones count as abandoned
+     */
+    private <T> T attempt(String operation, String attempt, Deadline deadline, Supplier<T> call,
+                          AtomicBoolean answered) {
+        if (deadline.isExpired()) {
+            throw deadlineExceeded(operation, null);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = deadline.callWith(call);
+            outcome = answered == null || answered.compareAndSet(false, true) ? "success" : "abandoned";
+            return result;
+        } catch (RuntimeException e) {
+            if (isTimeout(e)) {
+                outcome = "timeout";
+                if (deadline.remainingMs() <= DEADLINE_SLACK_MS) {
+                    throw deadlineExceeded(operation, e);
+                }
+            }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("kds.order_service.attempt")
+                    .description("Duration of each attempt at an Order Service call")
+                    .tag("operation", operation)
+                    .tag("attempt", attempt)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Completes with the first successful result, or the last failure if both attempts fail
+     */
+    private static <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> attempt : List.of(first, second)) {
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    private <T> T await(String operation, Deadline deadline, CompletableFuture<T> result) {
+        try {
+            return deadline.isBounded()
+                    ? result.get(deadline.remainingMs(), TimeUnit.MILLISECONDS)
+                    : result.get();
+        } catch (TimeoutException e) {
+            throw deadlineExceeded(operation, null);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling Order Service (" + operation + ")", e);
+        }
+    }
+
+    /**
+     * Wait before retrying a failed write, or -1 if the failure does not show it is safe to retry
+     */
+    long retryBackoffMs(RuntimeException e) {
+        if (e instanceof HttpStatusCodeException status) {
+            if (!status.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)
+                    && !status.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                return -1;
+            }
+            HttpHeaders headers = status.getResponseHeaders();
+            String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+            if (retryAfter != null && retryAfter.trim().matches("\\d+")) {
+                return Math.max(retryBackoffMs, Long.parseLong(retryAfter.trim()) * 1000);
+            }
+            return retryBackoffMs;
+        }
+        // Nothing reached Order Service: no connection, or none free in the pool
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof HttpConnectTimeoutException
+                    || cause instanceof ConnectionRequestTimeoutException) {
+                return retryBackoffMs;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectTimeoutException || cause instanceof HttpConnectTimeoutException) {
+                return false;
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseStatusException deadlineExceeded(String operation, Throwable cause) {
+        return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                "Order Service did not answer " + operation + " within the request deadline", cause);
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
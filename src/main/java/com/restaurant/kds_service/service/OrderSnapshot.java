@@ -0,0 +1,169 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, versioned view of the active orders, serialized once per change
+ * The JSON body, its gzip variant and a strong ETag are computed up front so
+ * GET /api/kitchen/orders can write the bytes without touching Jackson.
+ * The compact display view (OrderView.DISPLAY) is serialized on first use and then kept
+ * alongside. Every representation's ETag is the snapshot ETag plus a suffix naming it.
+ */
+public final class OrderSnapshot {
+
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    /**
+     * A serialized representation and its gzip variant - shared, must not be modified
+     */
+    public record Encoded(byte[] json, byte[] gzip) {
+    }
+
+    private final long version;
+    private final List<KitchenOrderResponse> orders;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final Instant builtAt;
+    private final JsonMapper jsonMapper;
+
+    // Built on first use; a racing second build produces the same bytes
+    private volatile Encoded display;
+
+    private OrderSnapshot(long version, List<KitchenOrderResponse> orders, byte[] json, byte[] gzip,
+                          String etag, Instant builtAt, JsonMapper jsonMapper) {
+        this.version = version;
+        this.orders = orders;
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.builtAt = builtAt;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public static OrderSnapshot build(long version, List<KitchenOrderResponse> orders, JsonMapper jsonMapper) {
+        List<KitchenOrderResponse> copy = List.copyOf(orders);
+        byte[] json = jsonMapper.writeValueAsBytes(copy);
+        return new OrderSnapshot(version, copy, json, gzip(json), strongEtag(json), Instant.now(), jsonMapper);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<KitchenOrderResponse> getOrders() {
+        return orders;
+    }
+
+    /**
+     * Serialized JSON body - shared, must not be modified
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Gzip-compressed JSON body - shared, must not be modified
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Strong ETag of the identity (uncompressed) representation
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Strong ETag of the gzip representation
+     */
+    public String getGzipEtag() {
+        return getEtag(null, true);
+    }
+
+    /**
+     * Compact display view of the orders (OrderView.DISPLAY) and its gzip variant
+     */
+    public Encoded getDisplay() {
+        Encoded encoded = display;
+        if (encoded == null) {
+            byte[] displayJson = OrderView.DISPLAY.toJson(orders, jsonMapper);
+            encoded = new Encoded(displayJson, gzip(displayJson));
+            display = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Strong ETag of this snapshot in the given view (null for the full representation)
+     */
+    public String getEtag(OrderView view, boolean gzip) {
+        String suffix = (view == null ? "" : "-" + view.key()) + (gzip ? GZIP_ETAG_SUFFIX : "");
+        return suffix.isEmpty() ? etag : etag.substring(0, etag.length() - 1) + suffix + "\"";
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * Whether an If-None-Match header matches either encoding of the full representation
+     */
+    public boolean matches(String ifNoneMatch) {
+        return matches(ifNoneMatch, null);
+    }
+
+    /**
+     * Whether an If-None-Match header matches either encoding of this snapshot in the given view
+     */
+    public boolean matches(String ifNoneMatch, OrderView view) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String identityEtag = getEtag(view, false);
+        String gzipEtag = getEtag(view, true);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(identityEtag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String strongEtag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
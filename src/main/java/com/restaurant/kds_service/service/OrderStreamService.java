@@ -0,0 +1,309 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Server-Sent Events fan-out for kitchen displays
+ *
+ * Each client receives one snapshot, then per-order change events.
+ * Events are kept in a bounded replay buffer so a reconnecting client can resume
+ * from its Last-Event-ID. Every client has a bounded send queue drained by a small
+ * shared dispatcher pool; a client whose queue overflows is disconnected and will
+ * resume (or re-snapshot) when it reconnects.
+ */
+@Service
+public class OrderStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStreamService.class);
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    private final ActiveOrderStore activeOrderStore;
+    private final JsonMapper jsonMapper;
+    private final long emitterTimeoutMs;
+    private final long reconnectDelayMs;
+    private final int clientBufferSize;
+    private final int replayBufferSize;
+
+    private final Map<Long, SseClient> clients = new ConcurrentHashMap<>();
+    private final AtomicLong clientIds = new AtomicLong();
+
+    // Guards eventSequence, replayBuffer and client registration so no event is missed or duplicated
+    private final Object streamLock = new Object();
+    private final Deque<OrderChangeEvent> replayBuffer = new ArrayDeque<>();
+    private long eventSequence;
+
+    private final Executor dispatcher;
+    private final LongFunction<SseEmitter> emitters;
+
+    @Autowired
+    public OrderStreamService(
+            ActiveOrderStore activeOrderStore,
+            JsonMapper jsonMapper,
+            @Value("${sse.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${sse.reconnect-delay-ms:3000}") long reconnectDelayMs,
+            @Value("${sse.client-buffer-size:256}") int clientBufferSize,
+            @Value("${sse.replay-buffer-size:1000}") int replayBufferSize,
+            @Value("${sse.dispatcher-threads:4}") int dispatcherThreads) {
+        this(activeOrderStore, jsonMapper, emitterTimeoutMs, reconnectDelayMs, clientBufferSize, replayBufferSize,
+                newDispatcher(dispatcherThreads), SseEmitter::new);
+    }
+
+    OrderStreamService(ActiveOrderStore activeOrderStore, JsonMapper jsonMapper, long emitterTimeoutMs,
+                       long reconnectDelayMs, int clientBufferSize, int replayBufferSize,
+                       Executor dispatcher, LongFunction<SseEmitter> emitters) {
+        this.activeOrderStore = activeOrderStore;
+        this.jsonMapper = jsonMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.clientBufferSize = clientBufferSize;
+        this.replayBufferSize = replayBufferSize;
+        this.dispatcher = dispatcher;
+        this.emitters = emitters;
+    }
+
+    private static ExecutorService newDispatcher(int threads) {
+        AtomicInteger threadIds = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-dispatch-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Register a new display connection
+     * Resumes from lastEventId when the gap is still in the replay buffer and fits the client
+     * buffer, otherwise starts with a snapshot
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = emitters.apply(emitterTimeoutMs);
+        SseClient client = new SseClient(clientIds.incrementAndGet(), emitter, clientBufferSize);
+
+        emitter.onCompletion(() -> removeClient(client));
+        emitter.onTimeout(() -> removeClient(client));
+        emitter.onError(e -> removeClient(client));
+
+        synchronized (streamLock) {
+            List<OrderChangeEvent> replay = resumeFrom(lastEventId);
+            if (replay != null && replay.size() < clientBufferSize) {
+                logger.info("SSE client {} resuming after event {} ({} events to replay)",
+                        client.id, lastEventId, replay.size());
+                for (OrderChangeEvent event : replay) {
+                    client.offer(toSse(event));
+                }
+            } else {
+                // Reuse the pre-serialized snapshot body instead of encoding the list per client
+                OrderSnapshot snapshot = activeOrderStore.getSnapshot();
+                client.offer(SseEmitter.event()
+                        .id(Long.toString(eventSequence))
+                        .name(SNAPSHOT_EVENT)
+                        .reconnectTime(reconnectDelayMs)
+                        .data(snapshot.getJson(), MediaType.APPLICATION_JSON)
+                        .build());
+            }
+            clients.put(client.id, client);
+        }
+
+        logger.info("SSE client {} connected ({} active streams)", client.id, clients.size());
+        schedule(client);
+        return emitter;
+    }
+
+    /**
+     * Turn active-order changes into per-order stream events
+     */
+    @EventListener
+    public void onActiveOrdersChanged(ActiveOrdersChangedEvent changed) {
+        OrderDiff diff = changed.diff();
+        synchronized (streamLock) {
+            for (KitchenOrderResponse order : diff.added()) {
+                broadcast(OrderChangeEvent.Type.ADDED, order);
+            }
+            for (KitchenOrderResponse order : diff.changed()) {
+                broadcast(OrderChangeEvent.Type.UPDATED, order);
+            }
+            for (KitchenOrderResponse order : diff.removed()) {
+                broadcast(OrderChangeEvent.Type.REMOVED, order);
+            }
+        }
+        for (SseClient client : clients.values()) {
+            schedule(client);
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies and detect dead clients
+     */
+    @Scheduled(fixedRateString = "${sse.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+        for (SseClient client : clients.values()) {
+            if (offerOrDisconnect(client, heartbeat)) {
+                schedule(client);
+            }
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+        for (SseClient client : clients.values()) {
+            client.emitter.complete();
+        }
+        clients.clear();
+    }
+
+    // Caller must hold streamLock
+    private void broadcast(OrderChangeEvent.Type type, KitchenOrderResponse order) {
+        OrderChangeEvent event = new OrderChangeEvent(++eventSequence, type, order.getId(),
+                type == OrderChangeEvent.Type.REMOVED ? null : order);
+        replayBuffer.addLast(event);
+        while (replayBuffer.size() > replayBufferSize) {
+            replayBuffer.removeFirst();
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> sse = toSse(event);
+        for (SseClient client : clients.values()) {
+            offerOrDisconnect(client, sse);
+        }
+    }
+
+    /**
+     * Queue an event for one client; a client whose buffer is full is disconnected
+     */
+    private boolean offerOrDisconnect(SseClient client, Set<ResponseBodyEmitter.DataWithMediaType> sse) {
+        if (client.offer(sse)) {
+            return true;
+        }
+        logger.warn("SSE client {} is too slow (buffer of {} full) - disconnecting", client.id, clientBufferSize);
+        removeClient(client);
+        client.emitter.complete();
+        return false;
+    }
+
+    // Caller must hold streamLock; returns null when the client has to start over from a snapshot
+    private List<OrderChangeEvent> resumeFrom(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        long lastSeen;
+        try {
+            lastSeen = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (lastSeen > eventSequence) {
+            // Sequence from a previous process lifetime
+            return null;
+        }
+        long oldestAvailable = replayBuffer.isEmpty() ? eventSequence + 1 : replayBuffer.peekFirst().getEventId();
+        if (lastSeen + 1 < oldestAvailable) {
+            return null;
+        }
+        List<OrderChangeEvent> replay = new ArrayList<>();
+        for (OrderChangeEvent event : replayBuffer) {
+            if (event.getEventId() > lastSeen) {
+                replay.add(event);
+            }
+        }
+        return replay;
+    }
+
+    // Serialized once and shared by every client queue; the builder itself is not reusable
+    private Set<ResponseBodyEmitter.DataWithMediaType> toSse(OrderChangeEvent event) {
+        return SseEmitter.event()
+                .id(Long.toString(event.getEventId()))
+                .name("order-" + event.getType().name().toLowerCase(Locale.ROOT))
+                .data(jsonMapper.writeValueAsBytes(event), MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    private void removeClient(SseClient client) {
+        if (clients.remove(client.id) != null) {
+            logger.info("SSE client {} disconnected ({} active streams)", client.id, clients.size());
+        }
+    }
+
+    private void schedule(SseClient client) {
+        if (!client.queue.isEmpty() && client.draining.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> drain(client));
+            } catch (Exception e) {
+                client.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(SseClient client) {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> next;
+            while ((next = client.queue.poll()) != null) {
+                client.emitter.send(next);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("SSE client {} send failed: {}", client.id, e.getMessage());
+            removeClient(client);
+            client.queue.clear();
+            return;
+        } finally {
+            client.draining.set(false);
+        }
+        // Pick up anything enqueued after the last poll but before draining was released
+        schedule(client);
+    }
+
+    private static final class SseClient {
+        private final long id;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private SseClient(long id, SseEmitter emitter, int bufferSize) {
+            this.id = id;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            return queue.offer(event);
+        }
+    }
+}
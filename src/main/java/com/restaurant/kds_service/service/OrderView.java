@@ -0,0 +1,232 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reduced representations of the active orders for GET /api/kitchen/orders
+ *
+ * DISPLAY is the compact view kitchen screens need: short names and epoch-second times,
+ *   {"id":101,"t":5,"s":"PREPARING","c":1736937000,"it":[{"n":"Chicken Pizza","q":2}]}
+ * with null fields left out. fields(...) projects the regular representation onto a subset of
+ * its fields, names and formats unchanged (fields=id,status,items.itemName). Both are written
+ * straight from the KitchenOrderResponse objects with a JsonGenerator, without DTO copies.
+ */
+public final class OrderView {
+
+    private enum Field {
+        ID("id"), TABLE_ID("tableId"), USER_ID("userId"), STATUS("status"), TOTAL_AMOUNT("totalAmount"),
+        CREATED_AT("createdAt"), ITEMS("items");
+
+        final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+    }
+
+    private enum ItemField {
+        ID("id"), ITEM_ID("itemId"), ITEM_NAME("itemName"), QUANTITY("quantity"), UNIT_PRICE("unitPrice");
+
+        final String name;
+
+        ItemField(String name) {
+            this.name = name;
+        }
+    }
+
+    public static final OrderView DISPLAY = display(ZoneId.systemDefault());
+
+    private final String key;
+    private final Set<Field> fields;
+    private final Set<ItemField> itemFields;
+    private final ZoneId zone;
+
+    private OrderView(String key, Set<Field> fields, Set<ItemField> itemFields, ZoneId zone) {
+        this.key = key;
+        this.fields = fields;
+        this.itemFields = itemFields;
+        this.zone = zone;
+    }
+
+    /**
+     * Display view whose epoch seconds are taken in {@code zone} (DISPLAY uses the JVM default)
+     */
+    static OrderView display(ZoneId zone) {
+        return new OrderView("d", null, null, zone);
+    }
+
+    /**
+     * Projection onto a comma-separated list of KitchenOrderResponse fields
+     * "items" selects every item field, "items.itemName" a single one (and implies "items").
+     *
+     * @throws ResponseStatusException 400 for unknown fields or an empty list
+     */
+    public static OrderView fields(String spec) {
+        Set<Field> fields = EnumSet.noneOf(Field.class);
+        Set<ItemField> itemFields = EnumSet.noneOf(ItemField.class);
+        for (String name : spec.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.startsWith("items.")) {
+                itemFields.add(itemField(name));
+                fields.add(Field.ITEMS);
+            } else {
+                fields.add(field(name));
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields must name at least one field");
+        }
+        if (fields.contains(Field.ITEMS) && itemFields.isEmpty()) {
+            itemFields = EnumSet.allOf(ItemField.class);
+        }
+
+        // Canonical key, so the same selection in any order shares one ETag
+        StringBuilder key = new StringBuilder("f");
+        fields.forEach(field -> key.append('.').append(field.ordinal()));
+        itemFields.forEach(field -> key.append(".i").append(field.ordinal()));
+        return new OrderView(key.toString(), fields, itemFields, null);
+    }
+
+    private static Field field(String name) {
+        for (Field field : Field.values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw unknownField(name);
+    }
+
+    private static ItemField itemField(String name) {
+        for (ItemField field : ItemField.values()) {
+            if (("items." + field.name).equals(name)) {
+                return field;
+            }
+        }
+        throw unknownField(name);
+    }
+
+    private static ResponseStatusException unknownField(String name) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown order field: " + name);
+    }
+
+    /**
+     * Identifies this view among the representations of one snapshot (part of its ETag)
+     */
+    public String key() {
+        return key;
+    }
+
+    public byte[] toJson(List<KitchenOrderResponse> orders, JsonMapper jsonMapper) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + orders.size() * (fields == null ? 96 : 128));
+        try (JsonGenerator generator = jsonMapper.createGenerator(buffer)) {
+            generator.writeStartArray();
+            for (KitchenOrderResponse order : orders) {
+                if (fields == null) {
+                    writeDisplay(generator, order);
+                } else {
+                    writeProjected(generator, order);
+                }
+            }
+            generator.writeEndArray();
+        }
+        return buffer.toByteArray();
+    }
+
+    private void writeDisplay(JsonGenerator out, KitchenOrderResponse order) {
+        out.writeStartObject();
+        if (order.getId() != null) {
+            out.writeNumberProperty("id", order.getId());
+        }
+        if (order.getTableId() != null) {
+            out.writeNumberProperty("t", order.getTableId());
+        }
+        if (order.getStatus() != null) {
+            out.writeStringProperty("s", order.getStatus());
+        }
+        if (order.getCreatedAt() != null) {
+            out.writeNumberProperty("c", epochSecond(order.getCreatedAt()));
+        }
+        if (order.getItems() != null) {
+            out.writeArrayPropertyStart("it");
+            for (KitchenOrderResponse.OrderItem item : order.getItems()) {
+                if (item == null) {
+                    out.writeNull();
+                    continue;
+                }
+                out.writeStartObject();
+                if (item.getItemName() != null) {
+                    out.writeStringProperty("n", item.getItemName());
+                }
+                if (item.getQuantity() != null) {
+                    out.writeNumberProperty("q", item.getQuantity());
+                }
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        out.writeEndObject();
+    }
+
+    private void writeProjected(JsonGenerator out, KitchenOrderResponse order) {
+        out.writeStartObject();
+        for (Field field : fields) {
+            out.writeName(field.name);
+            switch (field) {
+                case ID -> out.writePOJO(order.getId());
+                case TABLE_ID -> out.writePOJO(order.getTableId());
+                case USER_ID -> out.writePOJO(order.getUserId());
+                case STATUS -> out.writeString(order.getStatus());
+                case TOTAL_AMOUNT -> out.writePOJO(order.getTotalAmount());
+                // Through the mapper, so the format matches the full representation
+                case CREATED_AT -> out.writePOJO(order.getCreatedAt());
+                case ITEMS -> writeProjectedItems(out, order.getItems());
+            }
+        }
+        out.writeEndObject();
+    }
+
+    private void writeProjectedItems(JsonGenerator out, List<KitchenOrderResponse.OrderItem> items) {
+        if (items == null) {
+            out.writeNull();
+            return;
+        }
+        out.writeStartArray();
+        for (KitchenOrderResponse.OrderItem item : items) {
+            if (item == null) {
+                out.writeNull();
+                continue;
+            }
+            out.writeStartObject();
+            for (ItemField field : itemFields) {
+                out.writeName(field.name);
+                switch (field) {
+                    case ID -> out.writePOJO(item.getId());
+                    case ITEM_ID -> out.writePOJO(item.getItemId());
+                    case ITEM_NAME -> out.writeString(item.getItemName());
+                    case QUANTITY -> out.writePOJO(item.getQuantity());
+                    case UNIT_PRICE -> out.writePOJO(item.getUnitPrice());
+                }
+            }
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    private long epochSecond(LocalDateTime time) {
+        return time.atZone(zone).toEpochSecond();
+    }
+}
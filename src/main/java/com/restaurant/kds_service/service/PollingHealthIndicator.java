@@ -0,0 +1,35 @@
+package com.restaurant.kds_service.service;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Order Service polling on /actuator/health (component "polling")
+ *
+ * Stays UP while the circuit breaker is open - the KDS keeps serving the last known orders - so
+ * an Order Service outage does not take the displays out of rotation; the breaker state, the
+ * current poll interval and the backoff are in the details.
+ */
+@Component
+public class PollingHealthIndicator implements HealthIndicator {
+
+    private final AdaptivePollSchedule pollSchedule;
+    private final PollingLeadership pollingLeadership;
+
+    public PollingHealthIndicator(AdaptivePollSchedule pollSchedule, PollingLeadership pollingLeadership) {
+        this.pollSchedule = pollSchedule;
+        this.pollingLeadership = pollingLeadership;
+    }
+
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("leader", pollingLeadership.isLeader())
+                .withDetail("circuitBreaker", pollSchedule.state().name())
+                .withDetail("intervalMs", pollSchedule.intervalMs())
+                .withDetail("consecutiveFailures", pollSchedule.consecutiveFailures())
+                .withDetail("backoffMs", pollSchedule.backoffMs())
+                .build();
+    }
+}
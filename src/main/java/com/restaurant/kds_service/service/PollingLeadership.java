@@ -0,0 +1,21 @@
+package com.restaurant.kds_service.service;
+
+/**
+ * Decides which KDS replica polls Order Service
+ *
+ * The leader polls and publishes the shared snapshot; followers read that snapshot
+ * instead of calling Order Service, so upstream load stays constant as replicas are added.
+ */
+public interface PollingLeadership {
+
+    /**
+     * True when this replica should poll Order Service and publish the shared snapshot
+     */
+    boolean isLeader();
+
+    /**
+     * Fencing token of the lease this replica holds (or last held), 0 when leadership is not fenced
+     * Tokens only ever increase, so a write carrying an older token than the last one seen is stale.
+     */
+    long fencingToken();
+}
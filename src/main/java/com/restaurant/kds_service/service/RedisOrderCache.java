@@ -0,0 +1,338 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Optional Redis copy of the active orders
+ * Redis is a cache ONLY - every failure here is logged and ignored
+ *
+ * Layout (no key expires; the {orders} hash tag keeps every key in one cluster slot):
+ *   kds:{orders}          hash    orderId -> order JSON
+ *   kds:{orders}:changes  zset    orderId -> version of its last change (removals included)
+ *   kds:{orders}:meta     hash    version, floor, polledAt, writtenAt (epoch millis)
+ *   kds:{orders}:fence    string  fencing token of the last accepted write
+ *
+ * The cache follows the ActiveOrderStore: each change writes the current state of just the
+ * orders it touched, in one atomic script. The first write after startup, a failure or a
+ * leadership change replaces everything instead. A poll that finds nothing new only moves
+ * polledAt, so staleness is read from that marker rather than signalled by data expiring.
+ *
+ * With polling leadership only the leader writes. polledAt is when the leader's last poll
+ * started (followers use it to tell which of their own status updates the list already
+ * reflects), and when the lease is fenced every write carries the leader's fencing token:
+ * Redis drops writes carrying an older token than the last one accepted.
+ *
+ * Every write that changes the list bumps the version and records it against each order it
+ * touched. Followers read the meta hash first; after the version moved they fetch just the orders
+ * changed since their last read and merge them into the list they hold. The change log keeps the
+ * last CHANGE_LOG_VERSIONS versions; a follower further behind (or one that has not read yet)
+ * loads the whole hash.
+ */
+@Service
+public class RedisOrderCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisOrderCache.class);
+    static final String ORDERS_KEY = "kds:{orders}";
+    static final String CHANGES_KEY = "kds:{orders}:changes";
+    static final String META_KEY = "kds:{orders}:meta";
+    private static final String FENCE_KEY = "kds:{orders}:fence";
+    static final long CHANGE_LOG_VERSIONS = 1000;
+
+    private static final String MODE_FULL = "full";
+    private static final String MODE_DELTA = "delta";
+    private static final String MODE_TOUCH = "touch";
+
+    // KEYS: orders, changes, meta, fence - every key the script touches, so it runs under Cluster and key ACLs.
+    // ARGV: fencing token (0 = unfenced), polledAt, writtenAt, mode (full|delta|touch), change log length,
+    // then one group per order: U id json (upsert) or R id (remove).
+    // A full write restarts the change log at its version (floor); versions at or below the floor are trimmed.
+    // Returns the list version, 0 when the write was fenced off.
+    private static final RedisScript<Long> FENCED_APPLY = new DefaultRedisScript<>(
+            "local token = tonumber(ARGV[1]) "
+                    + "if token > 0 then "
+                    + "if token < tonumber(redis.call('GET', KEYS[4]) or '0') then return 0 end "
+                    + "redis.call('SET', KEYS[4], ARGV[1]) end "
+                    + "local mode = ARGV[4] "
+                    + "local version "
+                    + "if mode == '" + MODE_TOUCH + "' then "
+                    + "version = tonumber(redis.call('HGET', KEYS[3], 'version') or '0') "
+                    + "if version == 0 then return 0 end "
+                    + "else "
+                    + "version = redis.call('HINCRBY', KEYS[3], 'version', 1) "
+                    + "if mode == '" + MODE_FULL + "' then "
+                    + "redis.call('DEL', KEYS[1], KEYS[2]) "
+                    + "redis.call('HSET', KEYS[3], 'floor', version) end "
+                    + "local i = 6 "
+                    + "while i <= #ARGV do "
+                    + "redis.call('ZADD', KEYS[2], version, ARGV[i + 1]) "
+                    + "if ARGV[i] == 'U' then "
+                    + "redis.call('HSET', KEYS[1], ARGV[i + 1], ARGV[i + 2]) "
+                    + "i = i + 3 "
+                    + "else "
+                    + "redis.call('HDEL', KEYS[1], ARGV[i + 1]) "
+                    + "i = i + 2 end end "
+                    + "local floor = version - tonumber(ARGV[5]) "
+                    + "if floor > tonumber(redis.call('HGET', KEYS[3], 'floor') or '0') then "
+                    + "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', floor) "
+                    + "redis.call('HSET', KEYS[3], 'floor', floor) end end "
+                    + "redis.call('HSET', KEYS[3], 'polledAt', ARGV[2]) "
+                    + "redis.call('HSET', KEYS[3], 'writtenAt', ARGV[3]) "
+                    + "return version", Long.class);
+
+    private static final List<String> SCRIPT_KEYS = List.of(ORDERS_KEY, CHANGES_KEY, META_KEY, FENCE_KEY);
+
+    private final ActiveOrderStore activeOrderStore;
+    private final PollingLeadership pollingLeadership;
+    private final boolean redisEnabled;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, KitchenOrderResponse> redisTemplate;
+
+    @Autowired(required = false)
+    private StringRedisTemplate stringRedisTemplate;
+
+    // Writer state (guarded by this): replace everything on the next write, fencing token of the last write
+    private boolean fullWriteNeeded = true;
+    private long writtenToken = -1;
+
+    // Epoch millis at which the poll behind the current store contents started
+    private volatile long polledAt;
+
+    // Reader state: the last list decoded by readShared and the version it was read at
+    private volatile VersionedOrders lastRead;
+
+    public RedisOrderCache(
+            ActiveOrderStore activeOrderStore,
+            PollingLeadership pollingLeadership,
+            @Value("${redis.enabled:false}") boolean redisEnabled) {
+        this.activeOrderStore = activeOrderStore;
+        this.pollingLeadership = pollingLeadership;
+        this.redisEnabled = redisEnabled;
+    }
+
+    public boolean isEnabled() {
+        return redisEnabled && redisTemplate != null && stringRedisTemplate != null;
+    }
+
+    /**
+     * Record the start time of the poll whose result is about to be applied (leader only)
+     */
+    public void pollStarted(long epochMillis) {
+        polledAt = epochMillis;
+    }
+
+    /**
+     * Mirror the orders a change touched into Redis
+     */
+    @EventListener
+    public void onActiveOrdersChanged(ActiveOrdersChangedEvent changed) {
+        if (!isEnabled() || !pollingLeadership.isLeader()) {
+            return;
+        }
+        synchronized (this) {
+            long token = pollingLeadership.fencingToken();
+            boolean full = fullWriteNeeded || token != writtenToken;
+            try {
+                List<Object> argv = header(token, full ? MODE_FULL : MODE_DELTA);
+                if (full) {
+                    for (KitchenOrderResponse order : activeOrderStore.getSnapshot().getOrders()) {
+                        addUpsert(argv, order);
+                    }
+                } else {
+                    // Current state rather than the diff payload: the store may already hold a later change
+                    for (Long orderId : touchedIds(changed.diff())) {
+                        KitchenOrderResponse order = activeOrderStore.get(orderId);
+                        if (order != null) {
+                            addUpsert(argv, order);
+                        } else {
+                            argv.add(bytes("R"));
+                            argv.add(bytes(orderId));
+                        }
+                    }
+                }
+
+                long version = execute(argv);
+                if (version == 0) {
+                    fullWriteNeeded = true;
+                    logger.warn("Redis cache write rejected: fencing token {} is stale", token);
+                    return;
+                }
+                fullWriteNeeded = false;
+                writtenToken = token;
+                logger.debug("Updated Redis cache ({} write, {} change, version {})",
+                        full ? MODE_FULL : MODE_DELTA, changed.source(), version);
+            } catch (Exception e) {
+                fullWriteNeeded = true;
+                logger.warn("Failed to update Redis cache (non-critical): {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record that a poll confirmed the cached orders are still current
+     */
+    public void refresh() {
+        if (!isEnabled() || !pollingLeadership.isLeader()) {
+            return;
+        }
+        synchronized (this) {
+            long token = pollingLeadership.fencingToken();
+            try {
+                if (fullWriteNeeded || token != writtenToken) {
+                    onActiveOrdersChanged(new ActiveOrdersChangedEvent(OrderDiff.empty(),
+                            ActiveOrdersChangedEvent.Source.POLL));
+                } else if (execute(header(token, MODE_TOUCH)) == 0) {
+                    fullWriteNeeded = true;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to refresh Redis snapshot age (non-critical): {}", e.getMessage());
+            }
+        }
+    }
+
+    private List<Object> header(long token, String mode) {
+        List<Object> argv = new ArrayList<>();
+        argv.add(bytes(token));
+        argv.add(bytes(polledAt));
+        argv.add(bytes(System.currentTimeMillis()));
+        argv.add(mode.getBytes(StandardCharsets.UTF_8));
+        argv.add(bytes(CHANGE_LOG_VERSIONS));
+        return argv;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addUpsert(List<Object> argv, KitchenOrderResponse order) {
+        RedisSerializer<KitchenOrderResponse> serializer =
+                (RedisSerializer<KitchenOrderResponse>) redisTemplate.getHashValueSerializer();
+        argv.add(bytes("U"));
+        argv.add(bytes(order.getId()));
+        argv.add(serializer.serialize(order));
+    }
+
+    private long execute(List<Object> argv) {
+        Long version = redisTemplate.execute(FENCED_APPLY, RedisSerializer.byteArray(),
+                new GenericToStringSerializer<>(Long.class), SCRIPT_KEYS, argv.toArray());
+        return version == null ? 0 : version;
+    }
+
+    private static Set<Long> touchedIds(OrderDiff diff) {
+        Set<Long> ids = new LinkedHashSet<>();
+        diff.added().forEach(order -> ids.add(order.getId()));
+        diff.changed().forEach(order -> ids.add(order.getId()));
+        diff.removed().forEach(order -> ids.add(order.getId()));
+        return ids;
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The orders the leader last published and the start time of the poll behind them, or null when
+     * Redis is disabled, empty or unreachable (followers keep their last known data)
+     */
+    public SharedSnapshot readShared() {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            return load();
+        } catch (Exception e) {
+            logger.warn("Failed to read shared snapshot from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Active orders published by the leader, with the epoch millis at which its poll started
+     */
+    public record SharedSnapshot(List<KitchenOrderResponse> orders, long polledAt) {
+    }
+
+    /**
+     * Check the meta hash; after the version moved fetch only the orders changed since the last read
+     */
+    private SharedSnapshot load() {
+        // Read the version first: a write landing in between only makes it older than the orders
+        List<Object> meta = stringRedisTemplate.opsForHash().multiGet(META_KEY, List.of("version", "polledAt", "floor"));
+        if (meta.get(0) == null) {
+            lastRead = null;
+            return null;
+        }
+        long version = Long.parseLong((String) meta.get(0));
+        long metaPolledAt = meta.get(1) == null ? 0 : Long.parseLong((String) meta.get(1));
+        long floor = meta.get(2) == null ? 0 : Long.parseLong((String) meta.get(2));
+
+        VersionedOrders previous = lastRead;
+        List<KitchenOrderResponse> orders;
+        if (previous != null && previous.version() == version) {
+            orders = previous.orders();
+        } else if (previous != null && previous.version() >= floor && previous.version() < version) {
+            orders = mergeChanges(previous);
+            lastRead = new VersionedOrders(version, orders);
+        } else {
+            orders = sorted(redisTemplate.<String, KitchenOrderResponse>opsForHash().values(ORDERS_KEY));
+            lastRead = new VersionedOrders(version, orders);
+        }
+        return new SharedSnapshot(orders, metaPolledAt);
+    }
+
+    /**
+     * Apply the orders changed after the previous read to its list
+     * Changes newer than the version read may be picked up too; the next read fetches them again.
+     * Should a full write or a trim slip in between, the next read sees the raised floor and loads everything.
+     */
+    private List<KitchenOrderResponse> mergeChanges(VersionedOrders previous) {
+        Set<String> changedIds = stringRedisTemplate.opsForZSet()
+                .rangeByScore(CHANGES_KEY, previous.version() + 1, Double.POSITIVE_INFINITY);
+        if (changedIds == null || changedIds.isEmpty()) {
+            return previous.orders();
+        }
+        List<String> ids = List.copyOf(changedIds);
+        List<KitchenOrderResponse> changed = redisTemplate.<String, KitchenOrderResponse>opsForHash()
+                .multiGet(ORDERS_KEY, ids);
+
+        Map<Long, KitchenOrderResponse> merged = new LinkedHashMap<>();
+        previous.orders().forEach(order -> merged.put(order.getId(), order));
+        for (int i = 0; i < ids.size(); i++) {
+            KitchenOrderResponse order = changed.get(i);
+            if (order == null) {
+                merged.remove(Long.parseLong(ids.get(i)));
+            } else {
+                merged.put(order.getId(), order);
+            }
+        }
+        return sorted(new ArrayList<>(merged.values()));
+    }
+
+    private static List<KitchenOrderResponse> sorted(List<KitchenOrderResponse> orders) {
+        List<KitchenOrderResponse> result = new ArrayList<>(orders);
+        result.removeIf(Objects::isNull);
+        result.sort(ActiveOrderStore.DISPLAY_ORDER);
+        return List.copyOf(result);
+    }
+
+    private record VersionedOrders(long version, List<KitchenOrderResponse> orders) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.restaurant.kds_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis lease deciding which replica polls Order Service
+ *
+ * Every replica tries to take (or renew) the lease key with SET NX PX on a dedicated thread,
+ * so a slow poll never delays renewal. Taking the lease increments a fencing counter; the
+ * token travels with every snapshot the leader writes, and Redis rejects writes carrying an
+ * older token than the last one accepted, so a paused ex-leader cannot overwrite its successor.
+ *
+ * A leader that stops renewing loses the lease after lease-ms, and a follower takes over on its
+ * next attempt: failover within lease-ms + renew-interval-ms (default 6s, two poll intervals).
+ * While Redis is unreachable nobody can coordinate, so every replica polls on its own until it is back.
+ */
+@Component
+@ConditionalOnExpression("${redis.enabled:false} and ${kds.leadership.enabled:false}")
+public class RedisPollingLeadership implements PollingLeadership {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisPollingLeadership.class);
+
+    static final String LEASE_KEY = "kds:poller:leader";
+    static final String FENCE_KEY = "kds:poller:fence";
+
+    // Returns a new fencing token when the lease was taken, -1 when it was renewed, 0 when someone else holds it
+    private static final RedisScript<Long> ACQUIRE_OR_RENEW = new DefaultRedisScript<>(
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+                    + "return redis.call('INCR', KEYS[2]) end "
+                    + "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) return -1 end "
+                    + "return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private enum State { LEADER, FOLLOWER, STANDALONE }
+
+    private final StringRedisTemplate redisTemplate;
+    private final long leaseMs;
+    private final long renewIntervalMs;
+    private final String instanceId;
+
+    private volatile State state = State.STANDALONE;
+    private volatile long fencingToken;
+    private ScheduledExecutorService leaseExecutor;
+
+    public RedisPollingLeadership(
+            StringRedisTemplate redisTemplate,
+            @Value("${kds.leadership.lease-ms:5000}") long leaseMs,
+            @Value("${kds.leadership.renew-interval-ms:1000}") long renewIntervalMs,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.leaseMs = leaseMs;
+        this.renewIntervalMs = renewIntervalMs;
+        this.instanceId = hostName() + "-" + UUID.randomUUID();
+
+        Gauge.builder("kds.leadership.leader", this, leadership -> leadership.isLeader() ? 1 : 0)
+                .description("1 when this replica polls Order Service, 0 when it follows the shared snapshot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        maintainLease();
+        leaseExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "polling-leadership");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseExecutor.scheduleWithFixedDelay(this::maintainLease, renewIntervalMs, renewIntervalMs,
+                TimeUnit.MILLISECONDS);
+        logger.info("Polling leadership enabled - instance {}, lease {}ms, renewed every {}ms",
+                instanceId, leaseMs, renewIntervalMs);
+    }
+
+    @Override
+    public boolean isLeader() {
+        return state != State.FOLLOWER;
+    }
+
+    @Override
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * Take the lease if it is free, renew it if we hold it
+     * Package-private so tests can drive it directly.
+     */
+    void maintainLease() {
+        State previous = state;
+        try {
+            Long result = redisTemplate.execute(ACQUIRE_OR_RENEW, List.of(LEASE_KEY, FENCE_KEY),
+                    instanceId, String.valueOf(leaseMs));
+            if (result != null && result > 0) {
+                fencingToken = result;
+                state = State.LEADER;
+            } else if (result != null && result < 0) {
+                state = State.LEADER;
+            } else {
+                state = State.FOLLOWER;
+            }
+        } catch (Exception e) {
+            state = State.STANDALONE;
+            if (previous != State.STANDALONE) {
+                logger.warn("Polling leadership unavailable, polling Order Service independently: {}", e.getMessage());
+            }
+        }
+        if (state != previous && state != State.STANDALONE) {
+            logger.info("Polling leadership: {} (fencing token {})", state == State.LEADER
+                    ? "this replica now polls Order Service" : "following the shared snapshot", fencingToken);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (leaseExecutor != null) {
+            leaseExecutor.shutdownNow();
+        }
+        if (state == State.LEADER) {
+            try {
+                // Hand over right away instead of making followers wait for the lease to expire
+                redisTemplate.execute(RELEASE, List.of(LEASE_KEY), instanceId);
+            } catch (Exception e) {
+                logger.debug("Failed to release polling lease: {}", e.getMessage());
+            }
+        }
+        state = State.FOLLOWER;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "kds";
+        }
+    }
+}
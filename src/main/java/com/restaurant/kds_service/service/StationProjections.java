@@ -0,0 +1,169 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Active orders per kitchen station, reduced to the items that station prepares
+ *
+ * Each station keeps its own sorted projection and pre-serialized OrderSnapshot, so
+ * GET /api/kitchen/stations/{station}/orders writes ready-made bytes (with ETag, gzip and the
+ * display view) whatever the total order count. On every ActiveOrdersChangedEvent only the
+ * orders in the diff are re-projected, and only stations whose projection changed are
+ * re-serialized. An order with no items for a station is left off that station.
+ *
+ * Orders are re-read from the ActiveOrderStore rather than taken from the event. Events arrive in
+ * mutation order on the store's dispatcher thread, after the write lock is released, so the store
+ * may already hold a later change; projecting that one is correct, and its own event finds nothing
+ * left to do.
+ */
+@Component
+public class StationProjections {
+
+    private static final Logger logger = LoggerFactory.getLogger(StationProjections.class);
+
+    private static final class Projection {
+        final Map<Long, KitchenOrderResponse> byId = new HashMap<>();
+        final NavigableSet<KitchenOrderResponse> orders = new TreeSet<>(ActiveOrderStore.DISPLAY_ORDER);
+        volatile OrderSnapshot snapshot;
+
+        /**
+         * Set (or with null remove) the projection of one order; false if it was already so
+         */
+        boolean put(Long orderId, KitchenOrderResponse projected) {
+            KitchenOrderResponse existing = byId.get(orderId);
+            if (existing == null ? projected == null : existing.equals(projected)) {
+                return false;
+            }
+            if (existing != null) {
+                orders.remove(existing);
+                byId.remove(orderId);
+            }
+            if (projected != null) {
+                orders.add(projected);
+                byId.put(orderId, projected);
+            }
+            return true;
+        }
+    }
+
+    private final ActiveOrderStore activeOrderStore;
+    private final StationRouting routing;
+    private final JsonMapper jsonMapper;
+    private final Map<String, Projection> projections = new LinkedHashMap<>();
+
+    @Autowired
+    public StationProjections(ActiveOrderStore activeOrderStore, JsonMapper jsonMapper, Environment environment) {
+        this(activeOrderStore, jsonMapper, StationRouting.bind(environment));
+    }
+
+    StationProjections(ActiveOrderStore activeOrderStore, JsonMapper jsonMapper, StationRouting routing) {
+        this.activeOrderStore = activeOrderStore;
+        this.routing = routing;
+        this.jsonMapper = jsonMapper;
+        OrderSnapshot empty = OrderSnapshot.build(0, List.of(), jsonMapper);
+        for (String station : routing.stations()) {
+            Projection projection = new Projection();
+            projection.snapshot = empty;
+            projections.put(station, projection);
+        }
+        if (!routing.isEmpty()) {
+            logger.info("Routing order items to stations {}", routing.stations());
+            // Orders the store already holds (normally none yet)
+            refresh(activeOrderStore.getSnapshot().getOrders().stream().map(KitchenOrderResponse::getId).toList());
+        }
+    }
+
+    /**
+     * Configured station names (lower case), in configuration order
+     */
+    public Set<String> stations() {
+        return routing.stations();
+    }
+
+    /**
+     * Pre-serialized orders of one station (case-insensitive), null for an unknown station
+     */
+    public OrderSnapshot getSnapshot(String station) {
+        Projection projection = projections.get(StationRouting.normalize(station));
+        return projection == null ? null : projection.snapshot;
+    }
+
+    /**
+     * Re-project the orders in a change
+     */
+    @EventListener
+    public void onActiveOrdersChanged(ActiveOrdersChangedEvent changed) {
+        if (projections.isEmpty()) {
+            return;
+        }
+        OrderDiff diff = changed.diff();
+        Set<Long> orderIds = new HashSet<>(diff.size() * 2);
+        for (List<KitchenOrderResponse> orders : List.of(diff.added(), diff.changed(), diff.removed())) {
+            for (KitchenOrderResponse order : orders) {
+                orderIds.add(order.getId());
+            }
+        }
+        refresh(orderIds);
+    }
+
+    private void refresh(Collection<Long> orderIds) {
+        synchronized (projections) {
+            Set<Projection> touched = new HashSet<>();
+            for (Long orderId : orderIds) {
+                KitchenOrderResponse order = activeOrderStore.get(orderId);
+                Map<String, List<KitchenOrderResponse.OrderItem>> items = order == null ? Map.of() : split(order);
+                for (Map.Entry<String, Projection> entry : projections.entrySet()) {
+                    List<KitchenOrderResponse.OrderItem> stationItems = items.get(entry.getKey());
+                    if (entry.getValue().put(orderId, stationItems == null ? null : project(order, stationItems))) {
+                        touched.add(entry.getValue());
+                    }
+                }
+            }
+            for (Projection projection : touched) {
+                projection.snapshot = OrderSnapshot.build(projection.snapshot.getVersion() + 1,
+                        List.copyOf(projection.orders), jsonMapper);
+            }
+        }
+    }
+
+    private Map<String, List<KitchenOrderResponse.OrderItem>> split(KitchenOrderResponse order) {
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            return Map.of();
+        }
+        Map<String, List<KitchenOrderResponse.OrderItem>> items = new HashMap<>();
+        for (KitchenOrderResponse.OrderItem item : order.getItems()) {
+            String station = routing.stationOf(item);
+            if (station != null) {
+                items.computeIfAbsent(station, s -> new ArrayList<>()).add(item);
+            }
+        }
+        return items;
+    }
+
+    private static KitchenOrderResponse project(KitchenOrderResponse order, List<KitchenOrderResponse.OrderItem> items) {
+        if (items.size() == order.getItems().size()) {
+            // Everything is prepared at this station: share the order itself
+            return order;
+        }
+        return new KitchenOrderResponse(order.getId(), order.getTableId(), order.getUserId(), order.getStatus(),
+                order.getTotalAmount(), order.getCreatedAt(), List.copyOf(items));
+    }
+}
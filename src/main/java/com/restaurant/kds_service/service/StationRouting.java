@@ -0,0 +1,138 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Which kitchen station prepares an order item (kitchen.stations.*)
+ *
+ *   kitchen.stations.grill.item-ids: 10, 11
+ *   kitchen.stations.grill.item-names: "*burger*, *steak*"
+ *
+ * An item listed by itemId goes to that station; otherwise to the first station, in
+ * configuration order, with a matching name pattern (case-insensitive, * and ? wildcards).
+ * Items matching no station appear on no station view (still on GET /api/kitchen/orders).
+ */
+public final class StationRouting {
+
+    static final String PREFIX = "kitchen.stations";
+
+    /**
+     * Configuration of one station
+     */
+    public record Rule(List<Long> itemIds, List<String> itemNames) {
+    }
+
+    private record NameRoute(Pattern pattern, String station) {
+    }
+
+    private final Set<String> stations;
+    private final Map<Long, String> byItemId = new HashMap<>();
+    private final List<NameRoute> byName = new ArrayList<>();
+
+    private StationRouting(Map<String, Rule> rules) {
+        Set<String> names = new LinkedHashSet<>();
+        rules.forEach((name, rule) -> {
+            String station = normalize(name);
+            names.add(station);
+            if (rule == null) {
+                return;
+            }
+            if (rule.itemIds() != null) {
+                rule.itemIds().forEach(itemId -> byItemId.putIfAbsent(itemId, station));
+            }
+            if (rule.itemNames() != null) {
+                for (String itemName : rule.itemNames()) {
+                    if (itemName != null && !itemName.isBlank()) {
+                        byName.add(new NameRoute(glob(itemName.trim()), station));
+                    }
+                }
+            }
+        });
+        this.stations = Collections.unmodifiableSet(names);
+    }
+
+    public static StationRouting of(Map<String, Rule> rules) {
+        return new StationRouting(rules);
+    }
+
+    /**
+     * Stations configured under kitchen.stations (none when the section is absent)
+     */
+    public static StationRouting bind(Environment environment) {
+        return of(Binder.get(environment)
+                .bind(PREFIX, Bindable.mapOf(String.class, Rule.class))
+                .orElseGet(LinkedHashMap::new));
+    }
+
+    /**
+     * Station names (lower case), in configuration order
+     */
+    public Set<String> stations() {
+        return stations;
+    }
+
+    public boolean isEmpty() {
+        return stations.isEmpty();
+    }
+
+    /**
+     * Station that prepares {@code item}, null when none is configured for it
+     */
+    public String stationOf(KitchenOrderResponse.OrderItem item) {
+        if (item == null) {
+            return null;
+        }
+        if (item.getItemId() != null) {
+            String station = byItemId.get(item.getItemId());
+            if (station != null) {
+                return station;
+            }
+        }
+        if (item.getItemName() != null) {
+            for (NameRoute route : byName) {
+                if (route.pattern().matcher(item.getItemName()).matches()) {
+                    return route.station();
+                }
+            }
+        }
+        return null;
+    }
+
+    static String normalize(String station) {
+        return station.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+}
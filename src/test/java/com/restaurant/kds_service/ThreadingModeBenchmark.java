@@ -0,0 +1,172 @@
+package com.restaurant.kds_service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Platform vs virtual threads under a slow Order Service
+ *
+ * Starts a stub Order Service that answers every PATCH after a fixed delay, boots the
+ * service once per threading mode and fires bursts of concurrent status updates at it.
+ * Not part of the regular test run (the class name does not match the surefire patterns):
+ *
+ *   mvn -Pjava21 test -Dtest=ThreadingModeBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ *
+ * Tuning: -Dbenchmark.concurrency=1000 -Dbenchmark.rounds=5 -Dbenchmark.upstream-latency-ms=200
+ * The virtual-thread run is skipped on JDKs older than 21.
+ */
+class ThreadingModeBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+    private static final int UPSTREAM_LATENCY_MS = Integer.getInteger("benchmark.upstream-latency-ms", 200);
+    private static final Pattern STATUS_PATH = Pattern.compile("/api/orders/(\\d+)/status");
+
+    private static HttpServer upstream;
+    private static ExecutorService upstreamExecutor;
+
+    @TempDir
+    Path outboxDir;
+
+    @BeforeAll
+    static void startUpstream() throws Exception {
+        upstreamExecutor = Executors.newCachedThreadPool();
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        upstream.setExecutor(upstreamExecutor);
+        upstream.createContext("/api/orders", exchange -> {
+            String body = "[]";
+            Matcher matcher = STATUS_PATH.matcher(exchange.getRequestURI().getPath());
+            if (matcher.matches()) {
+                exchange.getRequestBody().readAllBytes();
+                try {
+                    Thread.sleep(UPSTREAM_LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                body = "{\"id\":" + matcher.group(1) + ",\"tableId\":1,\"userId\":1,\"status\":\"PREPARING\","
+                        + "\"totalAmount\":10.0,\"createdAt\":\"2026-02-12T18:00:00\",\"items\":[]}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.stop(0);
+        upstreamExecutor.shutdownNow();
+    }
+
+    @Test
+    void platformThreads() throws Exception {
+        run(false);
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21+");
+        run(true);
+    }
+
+    private void run(boolean virtual) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KdsServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--order-service.base-url=http://localhost:" + upstream.getAddress().getPort() + "/api/orders",
+                        "--order-service.http.max-total=" + CONCURRENCY,
+                        "--order-service.http.max-per-route=" + CONCURRENCY,
+                        "--order-service.http.lease-timeout-ms=30000",
+                        "--order-service.http.response-timeout-ms=30000",
+                        "--polling.interval-ms=600000",
+                        "--polling.full-resync-interval-ms=600000",
+                        "--kds.outbox.dir=" + outboxDir,
+                        "--redis.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.restaurant.kds_service=WARN");
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            round(client, port, 0); // warm-up
+            List<Long> latencies = new ArrayList<>();
+            AtomicInteger errors = new AtomicInteger();
+            long start = System.nanoTime();
+            for (int round = 1; round <= ROUNDS; round++) {
+                latencies.addAll(round(client, port, round, errors));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%n[%s threads] %d requests (%d concurrent, upstream latency %dms): "
+                            + "%.0f req/s, p50 %dms, p99 %dms, max %dms, errors %d%n",
+                    virtual ? "virtual" : "platform", sorted.length, CONCURRENCY, UPSTREAM_LATENCY_MS,
+                    sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1], errors.get());
+        } finally {
+            context.close();
+        }
+    }
+
+    private List<Long> round(HttpClient client, String port, int round) {
+        return round(client, port, round, new AtomicInteger());
+    }
+
+    private List<Long> round(HttpClient client, String port, int round, AtomicInteger errors) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            // A kitchen-sized set of orders, so the measurement is about threads, not snapshot size
+            long orderId = i % 100 + 1;
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/kitchen/orders/" + orderId + "/preparing"))
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            long sent = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, ex) -> {
+                        if (ex != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        return (System.nanoTime() - sent) / 1_000_000;
+                    }));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
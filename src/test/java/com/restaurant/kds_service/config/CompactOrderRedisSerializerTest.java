@@ -0,0 +1,95 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compact Redis order codec
+ */
+class CompactOrderRedisSerializerTest {
+
+    private final RedisSerializer<KitchenOrderResponse> json =
+            new JacksonJsonRedisSerializer<>(JsonMapper.builder().build(), KitchenOrderResponse.class);
+
+    private static KitchenOrderResponse order(int itemCount) {
+        List<KitchenOrderResponse.OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new KitchenOrderResponse.OrderItem((long) i, 10L + i, "Chicken Pizza", 2, new BigDecimal("12.50")));
+        }
+        return new KitchenOrderResponse(101L, 5L, 7L, "PREPARING", new BigDecimal("-25.005"),
+                LocalDateTime.of(2026, 2, 12, 18, 0, 1, 500), items);
+    }
+
+    @Test
+    void testRoundTrip_SmallerThanJson() {
+        CompactOrderRedisSerializer compact = new CompactOrderRedisSerializer(json, 0);
+        KitchenOrderResponse order = order(3);
+
+        byte[] encoded = compact.serialize(order);
+
+        assertEquals(CompactOrderRedisSerializer.FORMAT_V1, encoded[0]);
+        assertEquals(order, compact.deserialize(encoded));
+        assertTrue(encoded.length * 3 < json.serialize(order).length);
+    }
+
+    @Test
+    void testRoundTrip_NullsAndUnknownStatus() {
+        CompactOrderRedisSerializer compact = new CompactOrderRedisSerializer(json, 0);
+        KitchenOrderResponse order = new KitchenOrderResponse();
+        order.setStatus("ON_HOLD");
+        order.setItems(Arrays.asList(null, new KitchenOrderResponse.OrderItem()));
+
+        assertEquals(order, compact.deserialize(compact.serialize(order)));
+        assertEquals(new KitchenOrderResponse(), compact.deserialize(compact.serialize(new KitchenOrderResponse())));
+    }
+
+    @Test
+    void testCompression_OnlyAboveThresholdAndWhenSmaller() {
+        KitchenOrderResponse large = order(20);
+        byte[] plain = new CompactOrderRedisSerializer(json, 0).serialize(large);
+        CompactOrderRedisSerializer compressing = new CompactOrderRedisSerializer(json, 64);
+
+        byte[] deflated = compressing.serialize(large);
+        assertEquals(CompactOrderRedisSerializer.FORMAT_V1_DEFLATED, deflated[0]);
+        assertTrue(deflated.length < plain.length);
+        assertEquals(large, compressing.deserialize(deflated));
+
+        assertEquals(CompactOrderRedisSerializer.FORMAT_V1, compressing.serialize(order(0))[0]);
+    }
+
+    @Test
+    void testDeserialize_ReadsJsonValues() {
+        KitchenOrderResponse order = order(2);
+
+        assertEquals(order, new CompactOrderRedisSerializer(json, 0).deserialize(json.serialize(order)));
+    }
+
+    @Test
+    void testDeserialize_CorruptValueThrowsSerializationException() {
+        CompactOrderRedisSerializer compact = new CompactOrderRedisSerializer(json, 0);
+        byte[] encoded = compact.serialize(order(3));
+
+        assertThrows(SerializationException.class,
+                () -> compact.deserialize(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(SerializationException.class, () -> compact.deserialize(new byte[]{42}));
+    }
+
+    @Test
+    void testOrderSerializer_SelectedByCodec() {
+        assertSame(json, RedisConfig.orderSerializer("json", 0, json));
+        assertInstanceOf(CompactOrderRedisSerializer.class, RedisConfig.orderSerializer(" Compact ", 0, json));
+        assertThrows(IllegalArgumentException.class, () -> RedisConfig.orderSerializer("smile", 0, json));
+    }
+}
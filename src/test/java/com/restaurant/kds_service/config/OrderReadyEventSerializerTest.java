@@ -0,0 +1,107 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary order-ready event encoding
+ */
+class OrderReadyEventSerializerTest {
+
+    private final OrderReadyEventSerializer serializer = new OrderReadyEventSerializer();
+    private final OrderReadyEventDeserializer deserializer = new OrderReadyEventDeserializer();
+
+    private static OrderReadyEvent event() {
+        return new OrderReadyEvent(101L, 5L,
+                List.of(new OrderReadyEvent.OrderItem("Chicken Pizza", 2), new OrderReadyEvent.OrderItem("Caesar Salad", 1)),
+                LocalDateTime.of(2026, 2, 12, 14, 30, 0, 123_456_789));
+    }
+
+    @Test
+    void testRoundTrip_SchemaHeaderAndSmallerThanJson() {
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] encoded = serializer.serialize("order-ready", headers, event());
+
+        assertEquals(OrderReadyEventDeserializer.SCHEMA_V1, encoded[0]);
+        assertEquals(OrderReadyEventSerializer.CONTENT_TYPE, new String(
+                headers.lastHeader(OrderReadyEventSerializer.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8));
+        assertEquals(event(), deserializer.deserialize("order-ready", encoded));
+        assertTrue(encoded.length * 3 < JsonMapper.builder().build().writeValueAsBytes(event()).length);
+    }
+
+    @Test
+    void testReadyAt_IndependentOfProducerAndConsumerZones() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Colombo"));
+            byte[] encoded = serializer.serialize("order-ready", event());
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+
+            // Same local time as the JSON encoding would carry
+            assertEquals(event().getReadyAt(), deserializer.deserialize("order-ready", encoded).getReadyAt());
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    void testRoundTrip_NullFields() {
+        OrderReadyEvent sparse = new OrderReadyEvent();
+        sparse.setItems(Arrays.asList(null, new OrderReadyEvent.OrderItem()));
+
+        assertEquals(sparse, deserializer.deserialize("order-ready", serializer.serialize("order-ready", sparse)));
+        assertNull(serializer.serialize("order-ready", null));
+    }
+
+    @Test
+    void testDeserialize_ReadsJsonRecords() {
+        byte[] json = JsonMapper.builder().build().writeValueAsBytes(event());
+
+        assertEquals(event(), deserializer.deserialize("order-ready", json));
+    }
+
+    @Test
+    void testDeserialize_CorruptRecordThrowsSerializationException() {
+        byte[] encoded = serializer.serialize("order-ready", event());
+
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("order-ready", Arrays.copyOf(encoded, encoded.length - 3)));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("order-ready", new byte[]{9}));
+    }
+
+    @Test
+    void testDeserialize_ItemCountLargerThanRecordIsRejected() {
+        CompactEncoding.Writer out = new CompactEncoding.Writer();
+        out.write(OrderReadyEventDeserializer.SCHEMA_V1);
+        out.bitmask(null, null, List.of());
+        out.varLong(Integer.MAX_VALUE);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("order-ready", out.toByteArray()));
+    }
+
+    @Test
+    void testProducerProperties_EncodingBatchingAndCompression() {
+        Map<String, Object> binary = KafkaProducerConfig.producerProperties("localhost:9092", "binary", 5, 65536, "zstd");
+
+        assertEquals(OrderReadyEventSerializer.class, binary.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
+        assertEquals(5, binary.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(65536, binary.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("zstd", binary.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertThrows(IllegalArgumentException.class,
+                () -> KafkaProducerConfig.producerProperties("localhost:9092", "avro", 5, 65536, "lz4"));
+    }
+}
@@ -0,0 +1,268 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.restaurant.kds_service.service.TestOrders.BASE;
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the indexed active-order store
+ */
+class ActiveOrderStoreTest {
+
+    private final List<Object> events = new ArrayList<>();
+    private ActiveOrderStore store;
+
+    private static List<Long> ids(List<KitchenOrderResponse> orders) {
+        return orders.stream().map(KitchenOrderResponse::getId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        store = new ActiveOrderStore(events::add, JsonMapper.builder().build(),
+                Set.of("CREATED", "CONFIRMED", "PREPARING"), Runnable::run);
+        List<KitchenOrderResponse> orders = List.of(
+                order(1, 10, "CREATED", 5),
+                order(2, 10, "PREPARING", 1),
+                order(3, 20, "PREPARING", 3),
+                order(4, 30, "CREATED", 2));
+        store.apply(store.diff(orders), ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+    }
+
+    @Test
+    void testApply_BuildsSnapshotInCreatedAtOrderAndPublishesEvent() {
+        assertEquals(List.of(2L, 4L, 3L, 1L), ids(store.getSnapshot().getOrders()));
+        assertEquals(1, store.getSnapshot().getVersion());
+        assertEquals(1, events.size());
+        assertInstanceOf(ActiveOrdersChangedEvent.class, events.get(0));
+    }
+
+    @Test
+    void testQuery_ByStatusAndTable() {
+        assertEquals(List.of(2L, 3L), ids(store.query(List.of("preparing"), null, null, null)));
+        assertEquals(List.of(2L, 1L), ids(store.query(null, 10L, null, null)));
+        assertEquals(List.of(1L), ids(store.query(List.of("CREATED"), 10L, null, null)));
+        assertEquals(List.of(2L, 4L, 3L), ids(store.query(List.of("CREATED", "PREPARING"), null, null, 3)));
+        assertTrue(store.query(List.of("READY"), null, null, null).isEmpty());
+        assertTrue(store.query(null, 99L, null, null).isEmpty());
+    }
+
+    @Test
+    void testQuery_SinceAndLimit() {
+        assertEquals(List.of(3L, 1L), ids(store.query(null, null, BASE.plusMinutes(3), null)));
+        assertEquals(List.of(2L, 4L), ids(store.query(null, null, null, 2)));
+    }
+
+    @Test
+    void testApply_StatusChangeMovesBetweenIndexes() {
+        OrderDiff diff = store.diff(List.of(
+                order(1, 10, "PREPARING", 5),
+                order(2, 10, "PREPARING", 1),
+                order(3, 20, "PREPARING", 3)));
+        store.apply(diff, ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+
+        assertEquals(List.of(2L, 3L, 1L), ids(store.query(List.of("PREPARING"), null, null, null)));
+        assertTrue(store.query(List.of("CREATED"), null, null, null).isEmpty());
+        assertTrue(store.query(null, 30L, null, null).isEmpty());
+        assertNull(store.get(4L));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void testApply_EmptyDiffKeepsVersion() {
+        store.apply(OrderDiff.empty(), ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+
+        assertEquals(1, store.getSnapshot().getVersion());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void testWriteThrough_UpdatesIndexesImmediately() {
+        store.writeThrough(order(1, 10, "PREPARING", 5));
+
+        assertEquals("PREPARING", store.get(1L).getStatus());
+        assertEquals(List.of(2L, 3L, 1L), ids(store.query(List.of("PREPARING"), null, null, null)));
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    void testWriteThrough_InactiveStatusRemovesOrder() {
+        store.writeThrough(order(2, 10, "READY", 1));
+
+        assertNull(store.get(2L));
+        assertEquals(List.of(4L, 3L, 1L), ids(store.getSnapshot().getOrders()));
+    }
+
+    @Test
+    void testApply_PollStartedBeforeLocalWriteCannotOverwriteIt() {
+        long pollSequence = store.currentSequence();
+        store.writeThrough(order(2, 10, "READY", 1));
+        store.writeThrough(order(4, 30, "PREPARING", 2));
+
+        // Poll response fetched before the writes still has the old statuses
+        OrderDiff stale = store.diff(List.of(
+                order(1, 10, "CREATED", 5),
+                order(2, 10, "PREPARING", 1),
+                order(3, 20, "PREPARING", 3),
+                order(4, 30, "CREATED", 2),
+                order(5, 30, "CREATED", 9)));
+        store.apply(stale, ActiveOrdersChangedEvent.Source.POLL, pollSequence);
+
+        assertNull(store.get(2L));
+        assertEquals("PREPARING", store.get(4L).getStatus());
+        assertNotNull(store.get(5L));
+
+        // A poll that started after the writes is authoritative again
+        OrderDiff fresh = store.diff(List.of(order(1, 10, "CREATED", 5), order(4, 30, "CREATED", 2)));
+        store.apply(fresh, ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+
+        assertEquals("CREATED", store.get(4L).getStatus());
+        assertNull(store.get(3L));
+    }
+
+    @Test
+    void testApplyEvent_IgnoresVersionsAlreadyApplied() {
+        assertTrue(store.applyEvent(5L, 1L, order(5, 30, "CREATED", 9), null));
+        assertTrue(store.applyEvent(5L, 3L, null, "PREPARING"));
+
+        // Redelivered and reordered events for the same order
+        assertFalse(store.applyEvent(5L, 2L, null, "CONFIRMED"));
+        assertFalse(store.applyEvent(5L, 3L, null, "CREATED"));
+
+        assertEquals("PREPARING", store.get(5L).getStatus());
+        assertEquals(List.of(2L, 4L, 3L, 1L, 5L), ids(store.getSnapshot().getOrders()));
+        assertEquals(ActiveOrdersChangedEvent.Source.EVENT, ((ActiveOrdersChangedEvent) events.get(2)).source());
+    }
+
+    @Test
+    void testApplyEvent_RemovedOrderStaysRemoved() {
+        assertTrue(store.applyEvent(2L, 7L, null, "READY"));
+        assertFalse(store.applyEvent(2L, 6L, order(2, 10, "PREPARING", 1), null));
+
+        assertNull(store.get(2L));
+    }
+
+    @Test
+    void testApplyEvent_OlderEventCannotUndoWriteThrough() {
+        store.writeThrough(order(2, 10, "READY", 1));
+
+        // Produced before the PATCH, consumed after it
+        assertFalse(store.applyEvent(2L, 5L, order(2, 10, "PREPARING", 1), null));
+        assertNull(store.get(2L));
+
+        // The event for the write itself lifts the fence; later changes apply again
+        assertTrue(store.applyEvent(2L, 6L, null, "READY"));
+        assertTrue(store.applyEvent(2L, 7L, order(2, 10, "PREPARING", 1), null));
+        assertEquals("PREPARING", store.get(2L).getStatus());
+    }
+
+    @Test
+    void testApplyEvent_StatusOnlyForUnknownOrderLeftToReconciliation() {
+        assertFalse(store.applyEvent(9L, 1L, null, "PREPARING"));
+        assertFalse(store.applyEvent(9L, 1L, order(8, 10, "PREPARING", 1), null));
+
+        assertNull(store.get(9L));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    void testApplyEvent_ProtectedFromPollStartedBeforeIt() {
+        long pollSequence = store.currentSequence();
+        store.applyEvent(1L, 2L, null, "PREPARING");
+
+        store.apply(store.diff(List.of(
+                order(1, 10, "CREATED", 5),
+                order(2, 10, "PREPARING", 1),
+                order(3, 20, "PREPARING", 3),
+                order(4, 30, "CREATED", 2))), ActiveOrdersChangedEvent.Source.POLL, pollSequence);
+
+        assertEquals("PREPARING", store.get(1L).getStatus());
+    }
+
+    @Test
+    void testWriteThrough_ListenerFailureDoesNotFailTheWrite() {
+        ActiveOrderStore failing = new ActiveOrderStore(event -> {
+            throw new IllegalStateException("listener down");
+        }, JsonMapper.builder().build(), Set.of("CREATED", "PREPARING"), Runnable::run);
+
+        assertDoesNotThrow(() -> failing.writeThrough(order(1, 10, "PREPARING", 0)));
+        assertEquals("PREPARING", failing.get(1L).getStatus());
+    }
+
+    @Test
+    void testEvents_PublishedInMutationOrderAcrossWriters() throws Exception {
+        List<KitchenOrderResponse> published = new ArrayList<>();
+        ActiveOrderStore racing = new ActiveOrderStore(event -> published.addAll(
+                ((ActiveOrdersChangedEvent) event).diff().changed()), JsonMapper.builder().build(),
+                Set.of("CREATED", "PREPARING"), Runnable::run);
+        racing.writeThrough(order(1, 10, "CREATED", 0));
+
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            String status = w % 2 == 0 ? "CREATED" : "PREPARING";
+            long tableId = w;
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    racing.writeThrough(order(1, tableId, status, 0));
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Whatever the interleaving, the last change a listener saw is the store's state
+        assertFalse(published.isEmpty());
+        assertEquals(racing.get(1L), published.get(published.size() - 1));
+    }
+
+    @Test
+    void testEvents_SlowListenerDoesNotBlockWriters() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> published = new CopyOnWriteArrayList<>();
+        ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+        ActiveOrderStore slow = new ActiveOrderStore(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            OrderDiff diff = ((ActiveOrdersChangedEvent) event).diff();
+            Stream.concat(diff.added().stream(), diff.changed().stream())
+                    .forEach(order -> published.add(order.getId() + ":" + order.getStatus()));
+        }, JsonMapper.builder().build(), Set.of("CREATED", "PREPARING"), dispatcher);
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+                slow.writeThrough(order(1, 10, "CREATED", 0));
+                slow.writeThrough(order(1, 10, "PREPARING", 0));
+                slow.writeThrough(order(2, 10, "CREATED", 1));
+            });
+            assertEquals("PREPARING", slow.get(1L).getStatus());
+            assertTrue(published.isEmpty());
+
+            release.countDown();
+            dispatcher.shutdown();
+            assertTrue(dispatcher.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(List.of("1:CREATED", "1:PREPARING", "2:CREATED"), published);
+        } finally {
+            dispatcher.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.restaurant.kds_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the adaptive poll interval and circuit breaker
+ */
+class AdaptivePollScheduleTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AdaptivePollSchedule schedule =
+            new AdaptivePollSchedule(3000, 1000, 15000, 0, 3, 5000, 20000, now::get);
+
+    @Test
+    void testInterval_FasterWhenChangingSlowerWhenIdleWithinBounds() {
+        schedule.recordSuccess(true);
+        assertEquals(1500, schedule.nextDelayMs());
+        schedule.recordSuccess(true);
+        schedule.recordSuccess(true);
+        assertEquals(1000, schedule.intervalMs());
+
+        schedule.recordSuccess(false);
+        assertEquals(1250, schedule.intervalMs());
+        for (int i = 0; i < 20; i++) {
+            schedule.recordSuccess(false);
+        }
+        assertEquals(15000, schedule.intervalMs());
+    }
+
+    @Test
+    void testJitter_StaysWithinSpread() {
+        AdaptivePollSchedule jittered = new AdaptivePollSchedule(3000, 1000, 15000, 0.1, 3, 5000, 20000, now::get);
+
+        for (int i = 0; i < 100; i++) {
+            long delay = jittered.nextDelayMs();
+            assertTrue(delay >= 2700 && delay <= 3300, "delay " + delay);
+        }
+    }
+
+    @Test
+    void testBreaker_OpensAfterThresholdAndBacksOffExponentially() {
+        assertFalse(schedule.recordFailure());
+        assertFalse(schedule.recordFailure());
+        assertTrue(schedule.recordFailure());
+
+        assertEquals(AdaptivePollSchedule.BreakerState.OPEN, schedule.state());
+        assertFalse(schedule.allowRequest());
+        assertEquals(5000, schedule.nextDelayMs());
+
+        // Backoff elapsed: one trial poll, which fails and doubles the backoff
+        now.addAndGet(5000);
+        assertTrue(schedule.allowRequest());
+        assertEquals(AdaptivePollSchedule.BreakerState.HALF_OPEN, schedule.state());
+        assertTrue(schedule.recordFailure());
+        assertEquals(10000, schedule.backoffMs());
+
+        now.addAndGet(10000);
+        schedule.allowRequest();
+        schedule.recordFailure();
+        now.addAndGet(20000);
+        schedule.allowRequest();
+        schedule.recordFailure();
+        assertEquals(20000, schedule.backoffMs());
+    }
+
+    @Test
+    void testBreaker_ClosesOnSuccessfulTrial() {
+        for (int i = 0; i < 3; i++) {
+            schedule.recordFailure();
+        }
+        now.addAndGet(5000);
+        assertTrue(schedule.allowRequest());
+
+        schedule.recordSuccess(false);
+
+        assertEquals(AdaptivePollSchedule.BreakerState.CLOSED, schedule.state());
+        assertEquals(0, schedule.consecutiveFailures());
+        assertEquals(0, schedule.backoffMs());
+        assertTrue(schedule.allowRequest());
+        // The next failure streak starts from the initial backoff again
+        for (int i = 0; i < 3; i++) {
+            schedule.recordFailure();
+        }
+        assertEquals(5000, schedule.backoffMs());
+    }
+}
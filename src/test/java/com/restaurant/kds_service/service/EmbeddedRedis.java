@@ -0,0 +1,71 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.ServerSocket;
+
+/**
+ * Embedded Redis server on a free port, with templates configured like RedisConfig
+ */
+final class EmbeddedRedis {
+
+    private final RedisServer server;
+    final LettuceConnectionFactory connectionFactory;
+    final StringRedisTemplate stringTemplate;
+    final RedisTemplate<String, KitchenOrderResponse> ordersTemplate;
+
+    EmbeddedRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        stringTemplate = new StringRedisTemplate(connectionFactory);
+
+        JacksonJsonRedisSerializer<KitchenOrderResponse> orderSerializer =
+                new JacksonJsonRedisSerializer<>(JsonMapper.builder().build(), KitchenOrderResponse.class);
+        ordersTemplate = new RedisTemplate<>();
+        ordersTemplate.setConnectionFactory(connectionFactory);
+        ordersTemplate.setKeySerializer(new StringRedisSerializer());
+        ordersTemplate.setHashKeySerializer(new StringRedisSerializer());
+        ordersTemplate.setValueSerializer(orderSerializer);
+        ordersTemplate.setHashValueSerializer(orderSerializer);
+        ordersTemplate.afterPropertiesSet();
+    }
+
+    /**
+     * RedisOrderCache wired to this server the way Spring would inject it
+     */
+    RedisOrderCache cache(ActiveOrderStore store, PollingLeadership leadership) {
+        RedisOrderCache cache = new RedisOrderCache(store, leadership, true);
+        ReflectionTestUtils.setField(cache, "redisTemplate", ordersTemplate);
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", stringTemplate);
+        return cache;
+    }
+
+    void flushAll() {
+        stringTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    void stop() throws Exception {
+        connectionFactory.destroy();
+        server.stop();
+    }
+}
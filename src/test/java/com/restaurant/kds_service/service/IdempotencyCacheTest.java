@@ -0,0 +1,50 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Idempotency-Key result cache
+ */
+class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final IdempotencyCache cache = new IdempotencyCache(100, 2, now::get);
+
+    @Test
+    void testGet_ScopedToOrderAndStatus() {
+        KitchenOrderResponse order = order(1, "READY");
+        cache.put("key", 1L, "READY", order);
+
+        assertSame(order, cache.get("key", 1L, "READY"));
+        assertNull(cache.get("key", 1L, "PREPARING"));
+        assertNull(cache.get("key", 2L, "READY"));
+    }
+
+    @Test
+    void testGet_EntriesExpireAfterTtl() {
+        cache.put("key", 1L, "READY", order(1, "READY"));
+        now.addAndGet(99);
+        assertNotNull(cache.get("key", 1L, "READY"));
+
+        now.addAndGet(1);
+        assertNull(cache.get("key", 1L, "READY"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_EvictsOldestBeyondMaxEntries() {
+        cache.put("a", 1L, "READY", order(1, "READY"));
+        cache.put("b", 2L, "READY", order(2, "READY"));
+        cache.put("c", 3L, "READY", order(3, "READY"));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a", 1L, "READY"));
+        assertNotNull(cache.get("c", 3L, "READY"));
+    }
+}
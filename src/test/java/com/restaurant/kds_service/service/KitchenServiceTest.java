@@ -0,0 +1,249 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.BatchStatusUpdateRequest;
+import com.restaurant.kds_service.dto.BatchStatusUpdateResponse;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import com.restaurant.kds_service.dto.UpdateOrderStatusRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for bulk status updates, request coalescing and idempotency keys
+ */
+class KitchenServiceTest {
+
+    private static final String BASE_URL = "http://order-service/api/orders";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final OrderReadyOutbox orderReadyOutbox = mock(OrderReadyOutbox.class);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final CountDownLatch upstreamGate = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ActiveOrderStore store;
+    private KitchenService kitchenService;
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+        store = new ActiveOrderStore(event -> { }, JsonMapper.builder().build(),
+                Set.of("CREATED", "CONFIRMED", "PREPARING"), Runnable::run);
+        store.apply(store.diff(List.of(order(1, "PREPARING"), order(2, "PREPARING"), order(3, "CREATED"))),
+                ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+        kitchenService = new KitchenService(restTemplate, orderReadyOutbox, store, executor, BASE_URL, 3,
+                new IdempotencyCache(60000, 100),
+                new OrderServiceCalls(executor, false, 500, true, 10, 50, meterRegistry), 3000, 10000,
+                meterRegistry);
+
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class))).thenAnswer(invocation -> {
+            String url = invocation.getArgument(0);
+            long id = Long.parseLong(url.substring(BASE_URL.length() + 1, url.lastIndexOf('/')));
+            if (id == 2) {
+                throw new ResourceAccessException("Order Service unavailable");
+            }
+            if (id == 4) {
+                // Hold the in-flight PATCH until every concurrent caller has arrived
+                upstreamGate.await(5, TimeUnit.SECONDS);
+            }
+            HttpEntity<UpdateOrderStatusRequest> entity = invocation.getArgument(2);
+            KitchenOrderResponse updated = order(id, entity.getBody().getStatus());
+            if (id == 5) {
+                updated.setItems(null);
+            }
+            return ResponseEntity.ok(updated);
+        });
+    }
+
+    private Deadline deadline() {
+        return kitchenService.deadline(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testUpdateOrderStatuses_ReportsEachOrderAndQueuesReadyEvents() {
+        BatchStatusUpdateResponse response = kitchenService.updateOrderStatuses(List.of(
+                new BatchStatusUpdateRequest(1L, "ready"),
+                new BatchStatusUpdateRequest(2L, "READY"),
+                new BatchStatusUpdateRequest(3L, "PREPARING")), "7", null, deadline());
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+        assertEquals(List.of(1L, 2L, 3L),
+                response.getResults().stream().map(BatchStatusUpdateResponse.Result::getOrderId).toList());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertFalse(response.getResults().get(1).isSuccess());
+        assertEquals("Order Service unavailable", response.getResults().get(1).getError());
+
+        // Successful updates are visible locally right away
+        assertNull(store.get(1L));
+        assertEquals("PREPARING", store.get(3L).getStatus());
+        assertEquals("PREPARING", store.get(2L).getStatus());
+
+        ArgumentCaptor<OrderReadyEvent> events = ArgumentCaptor.forClass(OrderReadyEvent.class);
+        verify(orderReadyOutbox).append(events.capture());
+        assertEquals(1L, events.getValue().getOrderId());
+    }
+
+    @Test
+    void testUpdateOrderStatuses_ReadyOrderWithoutItemsStillQueuesEvent() {
+        BatchStatusUpdateResponse response = kitchenService.updateOrderStatuses(
+                List.of(new BatchStatusUpdateRequest(5L, "READY")), null, null, deadline());
+
+        assertEquals(1, response.getSucceeded());
+        ArgumentCaptor<OrderReadyEvent> events = ArgumentCaptor.forClass(OrderReadyEvent.class);
+        verify(orderReadyOutbox).append(events.capture());
+        assertEquals(List.of(), events.getValue().getItems());
+    }
+
+    @Test
+    void testUpdateOrderStatuses_InvalidEntryFailsWithoutCallingOrderService() {
+        BatchStatusUpdateResponse response = kitchenService.updateOrderStatuses(
+                List.of(new BatchStatusUpdateRequest(null, "READY")), null, null, deadline());
+
+        assertEquals(1, response.getFailed());
+        verifyNoInteractions(restTemplate, orderReadyOutbox);
+    }
+
+    @Test
+    void testUpdateOrderStatuses_RejectsEmptyAndOversizedBatches() {
+        assertThrows(ResponseStatusException.class,
+                () -> kitchenService.updateOrderStatuses(Collections.emptyList(), null, null, deadline()));
+        assertThrows(ResponseStatusException.class, () -> kitchenService.updateOrderStatuses(List.of(
+                new BatchStatusUpdateRequest(1L, "READY"),
+                new BatchStatusUpdateRequest(2L, "READY"),
+                new BatchStatusUpdateRequest(3L, "READY"),
+                new BatchStatusUpdateRequest(4L, "READY")), null, null, deadline()));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testMarkOrderAsReady_ConcurrentDoubleTapSharesOneCall() throws Exception {
+        ExecutorService taps = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<KitchenOrderResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(taps.submit(() -> kitchenService.markOrderAsReady(4L, null, null, null, deadline())));
+            }
+            Thread.sleep(200);
+            upstreamGate.countDown();
+            for (Future<KitchenOrderResponse> result : results) {
+                assertEquals("READY", result.get(5, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            taps.shutdownNow();
+        }
+
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class));
+        verify(orderReadyOutbox, times(1)).append(any(OrderReadyEvent.class));
+    }
+
+    @Test
+    void testMarkOrderAsReady_RacingBatchEntriesShareOneCallAndOneEvent() throws Exception {
+        ExecutorService taps = Executors.newFixedThreadPool(2);
+        try {
+            Future<KitchenOrderResponse> tap = taps.submit(
+                    () -> kitchenService.markOrderAsReady(4L, null, null, null, deadline()));
+            Future<BatchStatusUpdateResponse> batch = taps.submit(() -> kitchenService.updateOrderStatuses(List.of(
+                    new BatchStatusUpdateRequest(4L, "READY"),
+                    new BatchStatusUpdateRequest(4L, "ready")), null, null, deadline()));
+            Thread.sleep(200);
+            upstreamGate.countDown();
+
+            assertEquals("READY", tap.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(2, batch.get(5, TimeUnit.SECONDS).getSucceeded());
+        } finally {
+            taps.shutdownNow();
+        }
+
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class));
+        verify(orderReadyOutbox, times(1)).append(any(OrderReadyEvent.class));
+        verify(orderReadyOutbox, never()).appendAll(anyList());
+    }
+
+    @Test
+    void testMarkOrderAsReady_RepeatedIdempotencyKeyReturnsCachedResult() {
+        KitchenOrderResponse first = kitchenService.markOrderAsReady(1L, null, null, "tap-1", deadline());
+        KitchenOrderResponse retry = kitchenService.markOrderAsReady(1L, null, null, "tap-1", deadline());
+        kitchenService.markOrderAsReady(1L, null, null, "tap-2", deadline());
+
+        assertSame(first, retry);
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class));
+        verify(orderReadyOutbox, times(2)).append(any(OrderReadyEvent.class));
+    }
+
+    @Test
+    void testUpdateOrderStatus_FailuresAreNotCached() {
+        assertThrows(RuntimeException.class,
+                () -> kitchenService.updateOrderStatus(2L, "PREPARING", null, null, "retry-me", deadline()));
+        assertThrows(RuntimeException.class,
+                () -> kitchenService.updateOrderStatus(2L, "PREPARING", null, null, "retry-me", deadline()));
+
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class));
+    }
+
+    @Test
+    void testUpdateOrderStatus_RefusedPatchIsRetriedOnceWithinDeadline() {
+        when(restTemplate.exchange(eq(BASE_URL + "/3/status"), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class)))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable",
+                        HttpHeaders.EMPTY, null, null))
+                .thenReturn(ResponseEntity.ok(order(3, "PREPARING")));
+
+        KitchenOrderResponse updated = kitchenService.updateOrderStatus(3L, "PREPARING", null, null, null,
+                deadline());
+
+        assertEquals("PREPARING", updated.getStatus());
+        assertEquals(1, meterRegistry.get("kds.order_service.attempt")
+                .tags("attempt", "primary", "outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get("kds.order_service.attempt")
+                .tags("attempt", "retry", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testDeadline_HeaderIsCappedAndMustBePositive() {
+        assertTrue(kitchenService.deadline(60_000L).remainingMs() <= 10_000);
+        assertTrue(kitchenService.deadline(200L).remainingMs() <= 200);
+        assertTrue(kitchenService.deadline(null).remainingMs() > 2_000);
+        assertThrows(ResponseStatusException.class, () -> kitchenService.deadline(0L));
+    }
+}
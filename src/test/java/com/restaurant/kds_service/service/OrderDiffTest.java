@@ -0,0 +1,56 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the poll diff engine
+ */
+class OrderDiffTest {
+
+    @Test
+    void testBetween_DetectsAddedChangedAndRemoved() {
+        Map<Long, KitchenOrderResponse> current = new HashMap<>();
+        current.put(1L, order(1, "CREATED"));
+        current.put(2L, order(2, "CREATED"));
+        current.put(3L, order(3, "PREPARING"));
+
+        OrderDiff diff = OrderDiff.between(current, List.of(
+                order(1, "CREATED"),
+                order(2, "PREPARING"),
+                order(4, "CREATED")));
+
+        assertEquals(List.of(4L), diff.added().stream().map(KitchenOrderResponse::getId).toList());
+        assertEquals(List.of(2L), diff.changed().stream().map(KitchenOrderResponse::getId).toList());
+        assertEquals(List.of(3L), diff.removed().stream().map(KitchenOrderResponse::getId).toList());
+        assertEquals(3, diff.size());
+    }
+
+    @Test
+    void testBetween_IdenticalSnapshotIsEmpty() {
+        Map<Long, KitchenOrderResponse> current = Map.of(1L, order(1, "CREATED"));
+
+        OrderDiff diff = OrderDiff.between(current, List.of(order(1, "CREATED")));
+
+        assertTrue(diff.isEmpty());
+        assertSame(OrderDiff.empty(), diff);
+    }
+
+    @Test
+    void testBetween_IgnoresDuplicatesAndOrdersWithoutId() {
+        OrderDiff diff = OrderDiff.between(Map.of(), List.of(
+                order(1, "CREATED"),
+                order(1, "PREPARING"),
+                new KitchenOrderResponse()));
+
+        assertEquals(1, diff.added().size());
+        assertEquals("CREATED", diff.added().get(0).getStatus());
+    }
+}
@@ -0,0 +1,278 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for leader/follower polling
+ */
+class OrderPollingServiceTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final RedisOrderCache redisOrderCache = mock(RedisOrderCache.class);
+    private final LocalPollingLeadership leadership = new LocalPollingLeadership();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<HttpHeaders> requests = new CopyOnWriteArrayList<>();
+    private ActiveOrderStore store;
+    private OrderPollingService pollingService;
+
+    @BeforeEach
+    void setUp() {
+        store = new ActiveOrderStore(event -> { }, JsonMapper.builder().build(),
+                Set.of("CREATED", "CONFIRMED", "PREPARING"), Runnable::run);
+        pollingService = pollingService(0);
+    }
+
+    private OrderPollingService pollingService(int pageSize) {
+        return new OrderPollingService(restTemplate, store, redisOrderCache, leadership,
+                new AdaptivePollSchedule(3000, 3000, 3000, 0, 3, 5000, 120000, System::currentTimeMillis),
+                "http://order-service/api/orders", 3000, true, pageSize, 4, 10000, 120000, new SimpleMeterRegistry());
+    }
+
+    private void stubOrderService(List<KitchenOrderResponse> orders) {
+        stubOrderService(url -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(jsonMapper.writeValueAsBytes(orders), HttpStatus.OK);
+            response.getHeaders().setETag("\"v1\"");
+            return response;
+        });
+    }
+
+    /**
+     * Answer GET /active through the real response extractor, recording the request headers
+     */
+    @SuppressWarnings("unchecked")
+    private void stubOrderService(Function<String, MockClientHttpResponse> responses) {
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class),
+                any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> {
+                    MockClientHttpRequest request = new MockClientHttpRequest();
+                    invocation.<RequestCallback>getArgument(2).doWithRequest(request);
+                    requests.add(request.getHeaders());
+                    return invocation.<ResponseExtractor<?>>getArgument(3)
+                            .extractData(responses.apply(invocation.getArgument(0)));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyOrderServiceCalls(int times) {
+        verify(restTemplate, times(times)).execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class),
+                any(ResponseExtractor.class));
+    }
+
+    private MockClientHttpResponse page(List<KitchenOrderResponse> orders, String url, int total) {
+        int page = Integer.parseInt(UriComponentsBuilder.fromUriString(url).build().getQueryParams().getFirst("page"));
+        int size = Integer.parseInt(UriComponentsBuilder.fromUriString(url).build().getQueryParams().getFirst("size"));
+        List<KitchenOrderResponse> slice = orders.subList(Math.min(page * size, orders.size()),
+                Math.min((page + 1) * size, orders.size()));
+        MockClientHttpResponse response = new MockClientHttpResponse(jsonMapper.writeValueAsBytes(slice), HttpStatus.OK);
+        response.getHeaders().set("X-Total-Count", String.valueOf(total));
+        return response;
+    }
+
+    @Test
+    void testPoll_FollowerAppliesSharedSnapshotWithoutCallingOrderService() {
+        leadership.setLeader(false);
+        when(redisOrderCache.readShared()).thenReturn(new RedisOrderCache.SharedSnapshot(
+                List.of(order(1, "CREATED"), order(2, "PREPARING")), System.currentTimeMillis()));
+
+        pollingService.pollActiveOrders();
+
+        verifyNoInteractions(restTemplate);
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testPoll_FollowerKeepsLocalUpdateUntilLeaderPollsAfterIt() throws Exception {
+        leadership.setLeader(false);
+        long beforeUpdate = System.currentTimeMillis() - 1000;
+        when(redisOrderCache.readShared()).thenReturn(
+                new RedisOrderCache.SharedSnapshot(List.of(order(1, "CREATED")), beforeUpdate));
+        pollingService.pollActiveOrders();
+
+        // A cook on this replica starts the order; the leader has not polled since
+        store.writeThrough(order(1, "PREPARING"));
+        Thread.sleep(5);
+        pollingService.pollActiveOrders();
+        assertEquals("PREPARING", store.get(1L).getStatus());
+
+        // The leader's next poll started after the update but Order Service moved the order on again
+        Thread.sleep(5);
+        when(redisOrderCache.readShared()).thenReturn(new RedisOrderCache.SharedSnapshot(
+                List.of(order(1, "CONFIRMED")), System.currentTimeMillis()));
+        pollingService.pollActiveOrders();
+        assertEquals("CONFIRMED", store.get(1L).getStatus());
+    }
+
+    @Test
+    void testPoll_NewLeaderStartsWithUnconditionalFetch() {
+        stubOrderService(List.of(order(1, "CREATED")));
+        pollingService.pollActiveOrders();
+
+        leadership.setLeader(false);
+        when(redisOrderCache.readShared()).thenReturn(null);
+        pollingService.pollActiveOrders();
+        assertEquals(1, store.size());
+
+        leadership.setLeader(true);
+        pollingService.pollActiveOrders();
+
+        verifyOrderServiceCalls(2);
+        assertTrue(requests.get(1).getIfNoneMatch().isEmpty());
+        verify(redisOrderCache, times(2)).pollStarted(anyLong());
+    }
+
+    @Test
+    void testPoll_DeltaPollSkippedOnceEventsConnectedAndReconciled() {
+        OrderEventListener listener = mock(OrderEventListener.class);
+        when(listener.isConnected()).thenReturn(true);
+        when(listener.connectedAt()).thenReturn(System.currentTimeMillis() - 1000);
+        ReflectionTestUtils.setField(pollingService, "orderEventListener", listener);
+        stubOrderService(List.of(order(1, "CREATED")));
+
+        // The first poll after the consumer connected still runs, then events take over
+        pollingService.pollActiveOrders();
+        pollingService.pollActiveOrders();
+        verifyOrderServiceCalls(1);
+
+        // The full resync keeps reconciling, and polling resumes when the consumer loses its partitions
+        pollingService.resyncActiveOrders();
+        when(listener.isConnected()).thenReturn(false);
+        pollingService.pollActiveOrders();
+        verifyOrderServiceCalls(3);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPoll_CircuitOpensAfterConsecutiveFailures() {
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class),
+                any(ResponseExtractor.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        for (int i = 0; i < 5; i++) {
+            pollingService.pollActiveOrders();
+        }
+        pollingService.resyncActiveOrders();
+
+        // Three failures open the breaker; later polls and the resync leave Order Service alone
+        verifyOrderServiceCalls(3);
+    }
+
+    @Test
+    void testPoll_StreamsResponseAndAppliesOnlyChanges() {
+        stubOrderService(List.of(order(1, "CREATED"), order(2, "CREATED")));
+        pollingService.pollActiveOrders();
+        OrderSnapshot first = store.getSnapshot();
+
+        // Order 1 moves on, order 2 is gone, order 3 is new
+        stubOrderService(List.of(order(1, "PREPARING"), order(3, "CREATED")));
+        pollingService.resyncActiveOrders();
+
+        assertEquals(2, store.size());
+        assertEquals("PREPARING", store.get(1L).getStatus());
+        assertNull(store.get(2L));
+        assertNotSame(first, store.getSnapshot());
+        assertTrue(requests.get(1).getIfNoneMatch().isEmpty());
+    }
+
+    @Test
+    void testPoll_PagedFetchReadsEveryPage() {
+        pollingService = pollingService(2);
+        List<KitchenOrderResponse> orders = List.of(order(1, "CREATED"), order(2, "CREATED"),
+                order(3, "PREPARING"), order(4, "CREATED"), order(5, "CONFIRMED"));
+        stubOrderService(url -> page(orders, url, orders.size()));
+
+        pollingService.pollActiveOrders();
+
+        verifyOrderServiceCalls(3);
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    void testPoll_PagesShiftedWhileFetchingKeepsUnseenOrders() {
+        pollingService = pollingService(2);
+        List<KitchenOrderResponse> orders = List.of(order(1, "CREATED"), order(2, "CREATED"),
+                order(3, "PREPARING"), order(4, "CREATED"));
+        stubOrderService(url -> page(orders, url, orders.size()));
+        pollingService.pollActiveOrders();
+        assertEquals(4, store.size());
+
+        // Order 1 is served while page 1 is being fetched: order 3 slides onto page 0 and is never read
+        List<KitchenOrderResponse> afterServe = List.of(order(2, "CREATED"), order(3, "PREPARING"), order(4, "CREATED"));
+        stubOrderService(url -> url.contains("page=0") ? page(orders, url, 4) : page(afterServe, url, 3));
+        pollingService.resyncActiveOrders();
+
+        // Nothing seen can be trusted to be gone: order 3 stays, order 1 waits for a consistent read
+        assertNotNull(store.get(3L));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    void testFreshness_StaleReadRevalidatesInBackground() {
+        ReflectionTestUtils.setField(pollingService, "revalidationExecutor", new TaskExecutorAdapter(Runnable::run));
+        stubOrderService(List.of(order(1, "CREATED")));
+
+        // Never confirmed: expired, and the read kicks off a revalidation instead of waiting for the schedule
+        assertEquals(OrderFreshness.State.EXPIRED, pollingService.freshness().state());
+        verifyOrderServiceCalls(1);
+        assertEquals(1, store.size());
+
+        OrderFreshness freshness = pollingService.freshness();
+        assertEquals(OrderFreshness.State.FRESH, freshness.state());
+        assertEquals(0, freshness.ageSeconds());
+        verifyOrderServiceCalls(1);
+    }
+
+    @Test
+    void testFreshness_BusyRevalidationExecutorDoesNotHoldUpTheRead() {
+        List<Runnable> started = new CopyOnWriteArrayList<>();
+        TaskExecutor busy = task -> {
+            started.add(task);
+            throw new TaskRejectedException("busy");
+        };
+        ReflectionTestUtils.setField(pollingService, "revalidationExecutor", busy);
+        stubOrderService(List.of(order(1, "CREATED")));
+
+        assertEquals(OrderFreshness.State.EXPIRED, pollingService.freshness().state());
+        assertEquals(OrderFreshness.State.EXPIRED, pollingService.freshness().state());
+
+        // Each read tried once and returned; the scheduled poll is left to catch up
+        assertEquals(2, started.size());
+        verifyOrderServiceCalls(0);
+    }
+
+    @Test
+    void testFreshness_Thresholds() {
+        assertEquals(OrderFreshness.State.FRESH, OrderFreshness.of(1_000, 11_000, 10_000, 120_000).state());
+        assertEquals(OrderFreshness.State.STALE, OrderFreshness.of(1_000, 11_001, 10_000, 120_000).state());
+        assertEquals(OrderFreshness.State.EXPIRED, OrderFreshness.of(1_000, 121_001, 10_000, 120_000).state());
+        assertEquals(121, OrderFreshness.of(0, 5_000, 10_000, 120_000).ageSeconds());
+    }
+}
@@ -0,0 +1,120 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.config.OrderReadyEventDeserializer;
+import com.restaurant.kds_service.config.OrderReadyEventSerializer;
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Order-ready publish throughput per encoding and compression, against an embedded broker
+ *
+ * Sends the same burst of events once per combination, waits for every acknowledgement and
+ * reads them back with OrderReadyEventDeserializer. Not part of the regular test run (the class
+ * name does not match the surefire patterns):
+ *
+ *   mvn test -Dtest=OrderReadyEventThroughputBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ *
+ * Tuning: -Dbenchmark.events=50000 -Dbenchmark.linger-ms=5 -Dbenchmark.batch-size=65536
+ */
+@EmbeddedKafka(partitions = 3, topics = {"order-ready-benchmark-json-none", "order-ready-benchmark-json-lz4",
+        "order-ready-benchmark-binary-none", "order-ready-benchmark-binary-lz4", "order-ready-benchmark-binary-zstd"})
+class OrderReadyEventThroughputBenchmark {
+
+    private static final int EVENTS = Integer.getInteger("benchmark.events", 50000);
+    private static final int LINGER_MS = Integer.getInteger("benchmark.linger-ms", 5);
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.batch-size", 65536);
+
+    @Test
+    void compareEncodings() throws Exception {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        List<OrderReadyEvent> events = new ArrayList<>(EVENTS);
+        LocalDateTime readyAt = LocalDateTime.of(2026, 2, 12, 18, 0);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new OrderReadyEvent((long) i, (long) (i % 40 + 1),
+                    List.of(new OrderReadyEvent.OrderItem("Chicken Pizza", 2),
+                            new OrderReadyEvent.OrderItem("Caesar Salad", 1),
+                            new OrderReadyEvent.OrderItem("Iced Tea", 3)),
+                    readyAt.plusSeconds(i)));
+        }
+
+        System.out.printf("%-8s %-6s %12s %14s%n", "encoding", "codec", "events/s", "value bytes");
+        for (String combination : List.of("json-none", "json-lz4", "binary-none", "binary-lz4", "binary-zstd")) {
+            String[] parts = combination.split("-");
+            run(broker, "order-ready-benchmark-" + combination, parts[0], parts[1], events);
+        }
+    }
+
+    private void run(EmbeddedKafkaBroker broker, String topic, String encoding, String compression,
+                     List<OrderReadyEvent> events) throws Exception {
+        Map<String, Object> producerProps = new HashMap<>();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, LINGER_MS);
+        producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, BATCH_SIZE);
+        producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        Serializer<OrderReadyEvent> valueSerializer;
+        if ("binary".equals(encoding)) {
+            valueSerializer = new OrderReadyEventSerializer();
+        } else {
+            JsonSerializer<OrderReadyEvent> json = new JsonSerializer<>();
+            json.setAddTypeInfo(false);
+            valueSerializer = json;
+        }
+
+        long valueBytes = 0;
+        long start = System.nanoTime();
+        try (KafkaProducer<String, OrderReadyEvent> producer =
+                     new KafkaProducer<>(producerProps, new StringSerializer(), valueSerializer)) {
+            List<Future<RecordMetadata>> acks = new ArrayList<>(events.size());
+            for (OrderReadyEvent event : events) {
+                acks.add(producer.send(new ProducerRecord<>(topic, event.getOrderId().toString(), event)));
+            }
+            for (Future<RecordMetadata> ack : acks) {
+                valueBytes += ack.get().serializedValueSize();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> consumerProps = new HashMap<>();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, "benchmark-" + topic);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        int received = 0;
+        try (KafkaConsumer<String, OrderReadyEvent> consumer =
+                     new KafkaConsumer<>(consumerProps, new StringDeserializer(), new OrderReadyEventDeserializer())) {
+            consumer.subscribe(List.of(topic));
+            long deadline = System.currentTimeMillis() + 30000;
+            while (received < events.size() && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, OrderReadyEvent> records = consumer.poll(Duration.ofMillis(500));
+                received += records.count();
+            }
+        }
+        assertEquals(events.size(), received, "every event should be readable with OrderReadyEventDeserializer");
+
+        System.out.printf("%-8s %-6s %12.0f %14.1f%n", encoding, compression, events.size() / seconds,
+                (double) valueBytes / events.size());
+    }
+}
@@ -0,0 +1,175 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.SendResult;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the on-disk order-ready outbox
+ */
+class OrderReadyOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final KafkaPublisherService kafkaPublisherService = mock(KafkaPublisherService.class);
+    private final List<List<Long>> sentBatches = new ArrayList<>();
+    private final List<OrderReadyOutbox> opened = new ArrayList<>();
+    private boolean kafkaAvailable = true;
+    // Orders whose sends fail while kafkaAvailable is true
+    private final List<Long> failingOrders = new ArrayList<>();
+
+    private OrderReadyOutbox outbox(int segmentBytes) {
+        OrderReadyOutbox outbox = new OrderReadyOutbox(kafkaPublisherService, JsonMapper.builder().build(),
+                directory.toString(), segmentBytes, false, 200, 500, 1000, 0, 0);
+        outbox.open();
+        opened.add(outbox);
+        return outbox;
+    }
+
+    private static OrderReadyEvent event(long orderId) {
+        return new OrderReadyEvent(orderId, 5L, List.of(new OrderReadyEvent.OrderItem("Burger", 1)),
+                LocalDateTime.of(2026, 2, 12, 18, 0));
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(OrderReadyOutbox.SEGMENT_SUFFIX)).count();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubKafka() {
+        when(kafkaPublisherService.publishOrderReadyEvents(anyList())).thenAnswer(invocation -> {
+            List<OrderReadyEvent> events = invocation.getArgument(0);
+            sentBatches.add(events.stream().map(OrderReadyEvent::getOrderId).toList());
+            List<CompletableFuture<SendResult<String, OrderReadyEvent>>> futures = new ArrayList<>();
+            for (OrderReadyEvent event : events) {
+                futures.add(kafkaAvailable && !failingOrders.contains(event.getOrderId())
+                        ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+            }
+            return futures;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(OrderReadyOutbox::shutdown);
+    }
+
+    @Test
+    void testRelay_PublishesInOrderAndAcknowledges() {
+        stubKafka();
+        OrderReadyOutbox outbox = outbox(4096);
+        outbox.appendAll(List.of(event(1), event(2)));
+        outbox.append(event(3));
+
+        outbox.relay();
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), sentBatches);
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(3, outbox.getAckedSequence());
+    }
+
+    @Test
+    void testRelay_OrderMarkedReadyAgainIsPublishedAgain() {
+        stubKafka();
+        OrderReadyOutbox outbox = outbox(4096);
+        outbox.appendAll(List.of(event(1), event(2)));
+        outbox.relay();
+        // Sent back to PREPARING, then READY again
+        outbox.append(event(1));
+        outbox.relay();
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(1L)), sentBatches);
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(3, outbox.getAckedSequence());
+    }
+
+    @Test
+    void testRelay_RetryResendsOnlyUnacceptedRecordsAndAcksPublishedPrefix() {
+        stubKafka();
+        failingOrders.add(2L);
+        OrderReadyOutbox outbox = outbox(4096);
+        outbox.appendAll(List.of(event(1), event(2), event(3)));
+
+        outbox.relay();
+        assertEquals(1, outbox.getAckedSequence());
+        assertEquals(2, outbox.getPendingCount());
+
+        failingOrders.clear();
+        outbox.relay();
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(2L)), sentBatches);
+        assertEquals(3, outbox.getAckedSequence());
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    @Test
+    void testRelay_KeepsEventsUntilKafkaAcknowledges() {
+        stubKafka();
+        kafkaAvailable = false;
+        OrderReadyOutbox outbox = outbox(4096);
+        outbox.append(event(1));
+
+        outbox.relay();
+        assertEquals(1, outbox.getPendingCount());
+        assertEquals(0, outbox.getAckedSequence());
+
+        kafkaAvailable = true;
+        outbox.relay();
+        assertEquals(2, sentBatches.size());
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    @Test
+    void testOpen_ReplaysOnlyUnacknowledgedEvents() {
+        stubKafka();
+        OrderReadyOutbox first = outbox(4096);
+        first.appendAll(List.of(event(1), event(2)));
+        first.relay();
+        first.appendAll(List.of(event(3), event(4)));
+        first.shutdown();
+
+        OrderReadyOutbox restarted = outbox(4096);
+        assertEquals(2, restarted.getPendingCount());
+        restarted.append(event(5));
+        restarted.relay();
+
+        assertEquals(List.of(3L, 4L, 5L), sentBatches.get(1));
+        assertEquals(5, restarted.getAckedSequence());
+    }
+
+    @Test
+    void testAppend_RotatesSegmentsAndDeletesAcknowledgedOnes() throws Exception {
+        stubKafka();
+        OrderReadyOutbox outbox = outbox(256);
+        for (long orderId = 1; orderId <= 10; orderId++) {
+            outbox.append(event(orderId));
+        }
+        assertTrue(segmentCount() > 1);
+
+        OrderReadyOutbox restarted = outbox(256);
+        assertEquals(10, restarted.getPendingCount());
+        restarted.relay();
+
+        assertEquals(1, segmentCount());
+        assertEquals(10, restarted.getAckedSequence());
+    }
+}
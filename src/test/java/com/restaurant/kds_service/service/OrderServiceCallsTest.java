@@ -0,0 +1,191 @@
+package com.restaurant.kds_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for deadlines, hedged reads and the single safe retry of writes
+ */
+class OrderServiceCallsTest {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private OrderServiceCalls calls(boolean hedge, long hedgeDelayMs) {
+        return new OrderServiceCalls(executor, hedge, hedgeDelayMs, true, 10, 50, meterRegistry);
+    }
+
+    private long attempts(String attempt, String outcome) {
+        var timer = meterRegistry.find("kds.order_service.attempt").tags("attempt", attempt, "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static Supplier<String> failingOnce(AtomicInteger calls, RuntimeException failure) {
+        return () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw failure;
+            }
+            return "ok";
+        };
+    }
+
+    @Test
+    void testRead_HedgesSlowPrimaryAndUsesFirstAnswer() throws Exception {
+        CountDownLatch primaryGate = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = calls(true, 50).read("active", Deadline.within(5000), () -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    primaryGate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(2, calls.get());
+        assertEquals(1, attempts("hedge", "success"));
+
+        // The primary is left to finish and counted as abandoned
+        primaryGate.countDown();
+        for (int i = 0; i < 100 && attempts("primary", "abandoned") == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, attempts("primary", "abandoned"));
+    }
+
+    @Test
+    void testRead_FastAnswerAndFastFailureAreNotHedged() {
+        AtomicInteger calls = new AtomicInteger();
+        OrderServiceCalls hedged = calls(true, 200);
+
+        assertEquals("ok", hedged.read("active", Deadline.NONE, () -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        assertThrows(IllegalStateException.class, () -> hedged.read("active", Deadline.NONE, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("bad payload");
+        }));
+
+        assertEquals(2, calls.get());
+        assertEquals(0, attempts("hedge", "success"));
+    }
+
+    @Test
+    void testRead_FullHedgeExecutorRunsUnhedgedOnCaller() throws Exception {
+        ThreadPoolTaskExecutor full = new ThreadPoolTaskExecutor();
+        full.setCorePoolSize(1);
+        full.setMaxPoolSize(1);
+        full.setQueueCapacity(0);
+        full.initialize();
+        CountDownLatch busy = new CountDownLatch(1);
+        try {
+            full.execute(() -> {
+                try {
+                    busy.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            OrderServiceCalls calls = new OrderServiceCalls(full, true, 50, true, 10, 50, meterRegistry);
+            Thread caller = Thread.currentThread();
+
+            assertEquals("ok", calls.read("active", Deadline.within(5000),
+                    () -> Thread.currentThread() == caller ? "ok" : "pooled"));
+            assertEquals(1, attempts("primary", "success"));
+            assertEquals(0, attempts("hedge", "success"));
+        } finally {
+            busy.countDown();
+            full.shutdown();
+        }
+    }
+
+    @Test
+    void testIdempotentWrite_RetriesOnlyWhenUpstreamRefusedTheRequest() {
+        OrderServiceCalls calls = calls(false, 0);
+
+        AtomicInteger unavailable = new AtomicInteger();
+        assertEquals("ok", calls.idempotentWrite("status_update", Deadline.within(3000), failingOnce(unavailable,
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", HttpHeaders.EMPTY,
+                        null, null))));
+        assertEquals(2, unavailable.get());
+
+        AtomicInteger refused = new AtomicInteger();
+        assertEquals("ok", calls.idempotentWrite("status_update", Deadline.within(3000), failingOnce(refused,
+                new ResourceAccessException("I/O error", new ConnectException("Connection refused")))));
+        assertEquals(2, refused.get());
+
+        // The PATCH may have been applied: not retried
+        AtomicInteger serverError = new AtomicInteger();
+        assertThrows(HttpServerErrorException.class, () -> calls.idempotentWrite("status_update",
+                Deadline.within(3000), failingOnce(serverError, HttpServerErrorException.create(
+                        HttpStatus.INTERNAL_SERVER_ERROR, "Error", HttpHeaders.EMPTY, null, null))));
+        assertEquals(1, serverError.get());
+
+        AtomicInteger readTimeout = new AtomicInteger();
+        assertThrows(ResourceAccessException.class, () -> calls.idempotentWrite("status_update",
+                Deadline.within(3000), failingOnce(readTimeout,
+                        new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")))));
+        assertEquals(1, readTimeout.get());
+        assertEquals(1, attempts("primary", "timeout"));
+    }
+
+    @Test
+    void testIdempotentWrite_NoRetryWhenTheBudgetIsNearlySpent() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> calls(false, 0).idempotentWrite("status_update",
+                Deadline.within(40), failingOnce(calls, HttpServerErrorException.create(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", HttpHeaders.EMPTY, null, null))));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testDeadline_BoundDuringAttemptAndExpiredDeadlineAnswers504() {
+        Deadline deadline = Deadline.within(3000);
+
+        assertSame(deadline, calls(false, 0).idempotentWrite("status_update", deadline, Deadline::current));
+        assertNull(Deadline.current());
+
+        AtomicInteger calls = new AtomicInteger();
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> calls(false, 0).idempotentWrite("status_update", Deadline.within(0), calls::incrementAndGet));
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, e.getStatusCode());
+        assertEquals(0, calls.get());
+    }
+}
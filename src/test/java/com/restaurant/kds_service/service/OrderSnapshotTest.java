@@ -0,0 +1,76 @@
+package com.restaurant.kds_service.service;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the pre-serialized order snapshot
+ */
+class OrderSnapshotTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void testBuild_GzipVariantDecodesToJson() throws IOException {
+        OrderSnapshot snapshot = OrderSnapshot.build(1, List.of(order(1, "CREATED")), jsonMapper);
+
+        byte[] unzipped;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzip()))) {
+            unzipped = in.readAllBytes();
+        }
+
+        assertArrayEquals(snapshot.getJson(), unzipped);
+        List<?> decoded = jsonMapper.readValue(snapshot.getJson(), List.class);
+        assertEquals(1, decoded.size());
+    }
+
+    @Test
+    void testEtag_StrongAndContentBased() {
+        OrderSnapshot first = OrderSnapshot.build(1, List.of(order(1, "CREATED")), jsonMapper);
+        OrderSnapshot same = OrderSnapshot.build(2, List.of(order(1, "CREATED")), jsonMapper);
+        OrderSnapshot changed = OrderSnapshot.build(3, List.of(order(1, "PREPARING")), jsonMapper);
+
+        assertTrue(first.getEtag().startsWith("\"") && first.getEtag().endsWith("\""));
+        assertFalse(first.getEtag().startsWith("W/"));
+        assertEquals(first.getEtag(), same.getEtag());
+        assertNotEquals(first.getEtag(), changed.getEtag());
+        assertNotEquals(first.getEtag(), first.getGzipEtag());
+    }
+
+    @Test
+    void testMatches_AcceptsEitherRepresentationAndLists() {
+        OrderSnapshot snapshot = OrderSnapshot.build(1, List.of(order(1, "CREATED")), jsonMapper);
+
+        assertTrue(snapshot.matches(snapshot.getEtag()));
+        assertTrue(snapshot.matches(snapshot.getGzipEtag()));
+        assertTrue(snapshot.matches("\"other\", " + snapshot.getEtag()));
+        assertTrue(snapshot.matches("*"));
+        assertFalse(snapshot.matches("\"other\""));
+        assertFalse(snapshot.matches(null));
+    }
+
+    @Test
+    void testViews_EtagPerViewAndDisplayCached() {
+        OrderSnapshot snapshot = OrderSnapshot.build(1, List.of(order(1, "CREATED")), jsonMapper);
+        OrderView projection = OrderView.fields("id,status");
+
+        String displayEtag = snapshot.getEtag(OrderView.DISPLAY, false);
+        assertNotEquals(snapshot.getEtag(), displayEtag);
+        assertNotEquals(displayEtag, snapshot.getEtag(projection, false));
+        assertTrue(snapshot.matches(displayEtag, OrderView.DISPLAY));
+        assertTrue(snapshot.matches(snapshot.getEtag(OrderView.DISPLAY, true), OrderView.DISPLAY));
+        assertFalse(snapshot.matches(snapshot.getEtag(), OrderView.DISPLAY));
+        assertFalse(snapshot.matches(displayEtag));
+        assertTrue(snapshot.matches(snapshot.getEtag(OrderView.fields("status,id"), false), projection));
+
+        assertSame(snapshot.getDisplay(), snapshot.getDisplay());
+    }
+}
@@ -0,0 +1,150 @@
+package com.restaurant.kds_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SSE fan-out: resuming from Last-Event-ID, dropping slow clients and event order
+ */
+class OrderStreamServiceTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private ActiveOrderStore store;
+
+    /**
+     * Stream fed synchronously by its own store; {@code dispatcher} drains the client queues
+     */
+    private OrderStreamService stream(int clientBufferSize, int replayBufferSize, Executor dispatcher) {
+        OrderStreamService[] stream = new OrderStreamService[1];
+        store = new ActiveOrderStore(event -> stream[0].onActiveOrdersChanged((ActiveOrdersChangedEvent) event),
+                jsonMapper, Set.of("CREATED", "PREPARING"), Runnable::run);
+        stream[0] = new OrderStreamService(store, jsonMapper, 60_000, 3000, clientBufferSize, replayBufferSize,
+                dispatcher, timeout -> {
+                    RecordingEmitter emitter = new RecordingEmitter(timeout);
+                    emitters.add(emitter);
+                    return emitter;
+                });
+        return stream[0];
+    }
+
+    @Test
+    void testSubscribe_ResumesAfterLastEventId() {
+        OrderStreamService stream = stream(16, 100, Runnable::run);
+        store.writeThrough(order(1, "CREATED"));
+        store.writeThrough(order(2, "CREATED"));
+        store.writeThrough(order(1, "PREPARING"));
+
+        stream.subscribe("1");
+
+        RecordingEmitter resumed = emitters.get(0);
+        assertEquals(List.of(2L, 3L), resumed.ids());
+        assertEquals(List.of("order-added", "order-updated"), resumed.names());
+    }
+
+    @Test
+    void testSubscribe_SnapshotWhenResumeIsNotPossible() {
+        OrderStreamService stream = stream(16, 2, Runnable::run);
+        store.writeThrough(order(1, "CREATED"));
+        store.writeThrough(order(2, "CREATED"));
+        store.writeThrough(order(3, "CREATED"));
+
+        stream.subscribe("0");  // event 1 already left the replay buffer
+        stream.subscribe("42"); // sequence from a previous process lifetime
+        stream.subscribe(null);
+
+        for (RecordingEmitter emitter : emitters) {
+            assertEquals(List.of(OrderStreamService.SNAPSHOT_EVENT), emitter.names());
+            assertEquals(List.of(3L), emitter.ids());
+        }
+    }
+
+    @Test
+    void testSlowClient_DisconnectedWhenBufferIsFull() {
+        // Nothing drains the queues, as if the client stopped reading
+        OrderStreamService stream = stream(2, 100, task -> { });
+        stream.subscribe(null);
+        store.writeThrough(order(1, "CREATED"));
+        assertEquals(1, stream.getClientCount());
+
+        store.writeThrough(order(2, "CREATED"));
+
+        assertEquals(0, stream.getClientCount());
+        assertTrue(emitters.get(0).completed);
+    }
+
+    @Test
+    void testEvents_DeliveredInMutationOrder() {
+        OrderStreamService stream = stream(64, 100, Runnable::run);
+        stream.subscribe(null);
+
+        store.apply(store.diff(List.of(order(1, "CREATED"), order(2, "CREATED"))),
+                ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+        store.writeThrough(order(1, "PREPARING"));
+        store.writeThrough(order(2, "READY"));
+
+        RecordingEmitter client = emitters.get(0);
+        assertEquals(List.of(OrderStreamService.SNAPSHOT_EVENT,
+                "order-added", "order-added", "order-updated", "order-removed"), client.names());
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), client.ids());
+    }
+
+    /**
+     * Emitter that records what would be written to the response
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> sent = new ArrayList<>();
+        private boolean completed;
+
+        private RecordingEmitter(long timeout) {
+            super(timeout);
+        }
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            StringBuilder event = new StringBuilder();
+            for (DataWithMediaType item : items) {
+                event.append(item.getData() instanceof byte[] bytes
+                        ? new String(bytes, StandardCharsets.UTF_8) : item.getData());
+            }
+            sent.add(event.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        private synchronized List<String> names() {
+            return field("event:");
+        }
+
+        private synchronized List<Long> ids() {
+            return field("id:").stream().map(Long::parseLong).toList();
+        }
+
+        private List<String> field(String prefix) {
+            List<String> values = new ArrayList<>();
+            for (String event : sent) {
+                for (String line : event.split("\n")) {
+                    if (line.startsWith(prefix)) {
+                        values.add(line.substring(prefix.length()));
+                    }
+                }
+            }
+            return values;
+        }
+    }
+}
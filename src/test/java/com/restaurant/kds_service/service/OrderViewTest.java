@@ -0,0 +1,87 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.restaurant.kds_service.service.TestOrders.item;
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the display view and field projections
+ */
+class OrderViewTest {
+
+    private static final KitchenOrderResponse ORDER = order(101, 5, "PREPARING", 0, item(10, "Chicken Pizza", 2));
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void testDisplay_ShortNamesAndEpochSeconds() {
+        OrderView display = OrderView.display(ZoneOffset.UTC);
+
+        JsonNode node = jsonMapper.readTree(display.toJson(List.of(ORDER), jsonMapper)).get(0);
+
+        assertEquals(101, node.get("id").asLong());
+        assertEquals(5, node.get("t").asLong());
+        assertEquals("PREPARING", node.get("s").asString());
+        assertEquals(1770919200L, node.get("c").asLong());
+        assertEquals("Chicken Pizza", node.get("it").get(0).get("n").asString());
+        assertEquals(2, node.get("it").get(0).get("q").asInt());
+        assertEquals(5, node.size());
+    }
+
+    @Test
+    void testDisplay_OmitsNullsAndIsFarSmallerThanFullView() {
+        List<KitchenOrderResponse> orders = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            orders.add(order(id, 5, "PREPARING", 0, item(10, "Chicken Pizza", 2)));
+        }
+        orders.add(new KitchenOrderResponse(99L, null, null, null, null, null, null));
+
+        byte[] full = jsonMapper.writeValueAsBytes(orders);
+        byte[] display = OrderView.DISPLAY.toJson(orders, jsonMapper);
+
+        assertTrue(display.length * 2 < full.length, display.length + " vs " + full.length);
+        assertEquals("{\"id\":99}", jsonMapper.readTree(display).get(50).toString());
+    }
+
+    @Test
+    void testFields_ProjectsWithOriginalNamesAndFormats() {
+        OrderView view = OrderView.fields("status, id,createdAt,items.itemName");
+
+        JsonNode node = jsonMapper.readTree(view.toJson(List.of(ORDER), jsonMapper)).get(0);
+        JsonNode full = jsonMapper.readTree(jsonMapper.writeValueAsBytes(ORDER));
+
+        assertEquals(4, node.size());
+        assertEquals(full.get("id"), node.get("id"));
+        assertEquals(full.get("status"), node.get("status"));
+        assertEquals(full.get("createdAt"), node.get("createdAt"));
+        assertEquals("{\"itemName\":\"Chicken Pizza\"}", node.get("items").get(0).toString());
+        assertNull(node.get("totalAmount"));
+    }
+
+    @Test
+    void testFields_ItemsAloneSelectsEveryItemField() {
+        JsonNode node = jsonMapper.readTree(OrderView.fields("items").toJson(List.of(ORDER), jsonMapper)).get(0);
+
+        assertEquals(jsonMapper.readTree(jsonMapper.writeValueAsBytes(ORDER)).get("items"), node.get("items"));
+    }
+
+    @Test
+    void testFields_KeyIgnoresOrderAndRejectsUnknownFields() {
+        assertEquals(OrderView.fields("id,status").key(), OrderView.fields("status, id").key());
+        assertNotEquals(OrderView.fields("id").key(), OrderView.fields("id,items").key());
+
+        assertThrows(ResponseStatusException.class, () -> OrderView.fields("id,price"));
+        assertThrows(ResponseStatusException.class, () -> OrderView.fields("items.name"));
+        assertThrows(ResponseStatusException.class, () -> OrderView.fields(" , "));
+    }
+}
@@ -0,0 +1,174 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Leader writes to Redis and the version-checked follower read
+ */
+class RedisOrderCacheTest {
+
+    private static EmbeddedRedis redis;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final LocalPollingLeadership follower = new LocalPollingLeadership();
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = new EmbeddedRedis();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        follower.setLeader(false);
+    }
+
+    private void publish(long... orderIds) {
+        ActiveOrderStore store = new ActiveOrderStore(event -> { }, jsonMapper, Set.of("CREATED", "PREPARING"),
+                Runnable::run);
+        List<KitchenOrderResponse> orders = new ArrayList<>();
+        for (long id : orderIds) {
+            orders.add(order(id, "PREPARING"));
+        }
+        store.apply(store.diff(orders), ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+        RedisOrderCache writer = redis.cache(store, new LocalPollingLeadership());
+        writer.pollStarted(System.currentTimeMillis());
+        writer.onActiveOrdersChanged(new ActiveOrdersChangedEvent(OrderDiff.empty(),
+                ActiveOrdersChangedEvent.Source.POLL));
+    }
+
+    private static List<Long> ids(List<KitchenOrderResponse> orders) {
+        return orders.stream().map(KitchenOrderResponse::getId).toList();
+    }
+
+    @Test
+    void testReadShared_DecodesOnlyWhenVersionChanges() {
+        RedisOrderCache reader = redis.cache(null, follower);
+        publish(1, 2);
+
+        List<KitchenOrderResponse> first = reader.readShared().orders();
+        assertEquals(List.of(1L, 2L), ids(first));
+        assertSame(first, reader.readShared().orders());
+
+        publish(1, 2, 3);
+        assertEquals(List.of(1L, 2L, 3L), ids(reader.readShared().orders()));
+    }
+
+    @Test
+    void testReadShared_NullWhenNothingPublished() {
+        RedisOrderCache reader = redis.cache(null, follower);
+
+        assertNull(reader.readShared());
+    }
+
+    @Test
+    void testWrites_ApplyOnlyTouchedOrders() {
+        RedisOrderCache[] writer = new RedisOrderCache[1];
+        ActiveOrderStore store = new ActiveOrderStore(
+                event -> writer[0].onActiveOrdersChanged((ActiveOrdersChangedEvent) event),
+                jsonMapper, Set.of("CREATED", "PREPARING"), Runnable::run);
+        writer[0] = redis.cache(store, new LocalPollingLeadership());
+        writer[0].pollStarted(System.currentTimeMillis());
+
+        store.apply(store.diff(List.of(order(3, "CREATED"), order(1, "PREPARING"), order(2, "PREPARING"))),
+                ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+        store.writeThrough(order(2, "READY"));
+        store.writeThrough(order(3, "PREPARING"));
+
+        RedisOrderCache reader = redis.cache(null, follower);
+        assertEquals(List.of(1L, 3L), ids(reader.readShared().orders()));
+        assertEquals("PREPARING", reader.readShared().orders().get(1).getStatus());
+        assertEquals(2L, redis.stringTemplate.opsForHash().size(RedisOrderCache.ORDERS_KEY));
+        assertEquals("3", redis.stringTemplate.opsForHash().get(RedisOrderCache.META_KEY, "version"));
+    }
+
+    @Test
+    void testReadShared_FetchesOnlyOrdersChangedSinceLastRead() {
+        RedisOrderCache[] writer = new RedisOrderCache[1];
+        ActiveOrderStore store = new ActiveOrderStore(
+                event -> writer[0].onActiveOrdersChanged((ActiveOrdersChangedEvent) event),
+                jsonMapper, Set.of("CREATED", "PREPARING"), Runnable::run);
+        writer[0] = redis.cache(store, new LocalPollingLeadership());
+        store.apply(store.diff(List.of(order(1, "PREPARING"), order(2, "PREPARING"), order(3, "CREATED"))),
+                ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+
+        RedisOrderCache reader = redis.cache(null, follower);
+        List<KitchenOrderResponse> first = reader.readShared().orders();
+        assertEquals(List.of(1L, 2L, 3L), ids(first));
+
+        store.writeThrough(order(2, "READY"));
+        store.writeThrough(order(3, "PREPARING"));
+        assertEquals(Set.of("2", "3"), redis.stringTemplate.opsForZSet()
+                .rangeByScore(RedisOrderCache.CHANGES_KEY, 2, Double.POSITIVE_INFINITY));
+
+        List<KitchenOrderResponse> second = reader.readShared().orders();
+        assertEquals(List.of(1L, 3L), ids(second));
+        assertEquals("PREPARING", second.get(1).getStatus());
+        // Order 1 did not change, so the follower kept the instance it decoded before
+        assertSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    void testReadShared_LoadsEverythingWhenChangeLogWasTrimmed() {
+        RedisOrderCache[] writer = new RedisOrderCache[1];
+        ActiveOrderStore store = new ActiveOrderStore(
+                event -> writer[0].onActiveOrdersChanged((ActiveOrdersChangedEvent) event),
+                jsonMapper, Set.of("CREATED", "PREPARING"), Runnable::run);
+        writer[0] = redis.cache(store, new LocalPollingLeadership());
+        store.apply(store.diff(List.of(order(1, "PREPARING"), order(2, "CREATED"))),
+                ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+
+        RedisOrderCache reader = redis.cache(null, follower);
+        List<KitchenOrderResponse> first = reader.readShared().orders();
+
+        for (int i = 0; i <= RedisOrderCache.CHANGE_LOG_VERSIONS; i++) {
+            store.writeThrough(order(2, i % 2 == 0 ? "PREPARING" : "CREATED"));
+        }
+        store.writeThrough(order(1, "READY"));
+
+        List<KitchenOrderResponse> second = reader.readShared().orders();
+        assertEquals(List.of(2L), ids(second));
+        assertNotSame(first.get(1), second.get(0));
+    }
+
+    @Test
+    void testRefresh_MovesAgeMarkerInsteadOfExpiringData() {
+        ActiveOrderStore store = new ActiveOrderStore(event -> { }, jsonMapper, Set.of("PREPARING"), Runnable::run);
+        store.apply(store.diff(List.of(order(1, "PREPARING"))), ActiveOrdersChangedEvent.Source.POLL, 0);
+        RedisOrderCache writer = redis.cache(store, new LocalPollingLeadership());
+        writer.pollStarted(System.currentTimeMillis() - 60_000);
+        writer.onActiveOrdersChanged(new ActiveOrdersChangedEvent(OrderDiff.empty(),
+                ActiveOrdersChangedEvent.Source.POLL));
+
+        // Polling stalled for a minute: the data is still there, with the age of the poll behind it
+        RedisOrderCache reader = redis.cache(null, follower);
+        RedisOrderCache.SharedSnapshot stalled = reader.readShared();
+        assertEquals(1, stalled.orders().size());
+
+        long polledAt = System.currentTimeMillis();
+        writer.pollStarted(polledAt);
+        writer.refresh();
+        RedisOrderCache.SharedSnapshot refreshed = reader.readShared();
+        assertEquals(polledAt, refreshed.polledAt());
+        // A touch does not bump the version, so the decoded list is reused
+        assertSame(stalled.orders(), refreshed.orders());
+        assertEquals("1", redis.stringTemplate.opsForHash().get(RedisOrderCache.META_KEY, "version"));
+    }
+}
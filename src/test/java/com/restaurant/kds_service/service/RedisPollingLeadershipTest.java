@@ -0,0 +1,139 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Polling lease and fenced snapshot writes against an embedded Redis
+ */
+class RedisPollingLeadershipTest {
+
+    private static EmbeddedRedis redis;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<RedisPollingLeadership> replicas = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = new EmbeddedRedis();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redis.flushAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicas.forEach(RedisPollingLeadership::shutdown);
+    }
+
+    private RedisPollingLeadership replica(long leaseMs) {
+        RedisPollingLeadership leadership = new RedisPollingLeadership(redis.stringTemplate, leaseMs, 1000,
+                new SimpleMeterRegistry());
+        replicas.add(leadership);
+        return leadership;
+    }
+
+    private RedisOrderCache cache(PollingLeadership leadership, ActiveOrderStore store) {
+        return redis.cache(store, leadership);
+    }
+
+    private ActiveOrderStore store(long... orderIds) {
+        ActiveOrderStore store = new ActiveOrderStore(event -> { }, jsonMapper, Set.of("CREATED", "PREPARING"),
+                Runnable::run);
+        List<KitchenOrderResponse> orders = new ArrayList<>();
+        for (long id : orderIds) {
+            orders.add(order(id, "PREPARING"));
+        }
+        store.apply(store.diff(orders), ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+        return store;
+    }
+
+    @Test
+    void testMaintainLease_OnlyOneReplicaLeads() {
+        RedisPollingLeadership first = replica(5000);
+        RedisPollingLeadership second = replica(5000);
+
+        first.maintainLease();
+        second.maintainLease();
+        first.maintainLease();
+
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+        assertEquals(1, first.fencingToken());
+    }
+
+    @Test
+    void testMaintainLease_FollowerTakesOverWhenLeaseExpires() throws Exception {
+        RedisPollingLeadership first = replica(300);
+        RedisPollingLeadership second = replica(300);
+        first.maintainLease();
+        second.maintainLease();
+        assertFalse(second.isLeader());
+
+        // The leader stops renewing (paused or dead)
+        Thread.sleep(500);
+        second.maintainLease();
+        first.maintainLease();
+
+        assertTrue(second.isLeader());
+        assertFalse(first.isLeader());
+        assertEquals(2, second.fencingToken());
+    }
+
+    @Test
+    void testShutdown_HandsOverImmediately() {
+        RedisPollingLeadership first = replica(60000);
+        RedisPollingLeadership second = replica(60000);
+        first.maintainLease();
+        second.maintainLease();
+
+        first.shutdown();
+        second.maintainLease();
+
+        assertTrue(second.isLeader());
+    }
+
+    @Test
+    void testSnapshotWrite_StaleLeaderIsFencedOff() throws Exception {
+        RedisPollingLeadership first = replica(300);
+        RedisPollingLeadership second = replica(300);
+        first.maintainLease();
+        Thread.sleep(500);
+        second.maintainLease();
+
+        RedisOrderCache newLeader = cache(second, store(1, 2));
+        newLeader.pollStarted(1_000);
+        newLeader.onActiveOrdersChanged(new ActiveOrdersChangedEvent(OrderDiff.empty(),
+                ActiveOrdersChangedEvent.Source.POLL));
+
+        // The old leader has not noticed yet and still believes it holds the lease
+        RedisOrderCache staleLeader = cache(first, store(3));
+        staleLeader.onActiveOrdersChanged(new ActiveOrdersChangedEvent(OrderDiff.empty(),
+                ActiveOrdersChangedEvent.Source.POLL));
+
+        RedisOrderCache.SharedSnapshot shared = cache(second, store()).readShared();
+        assertNotNull(shared);
+        assertEquals(List.of(1L, 2L), shared.orders().stream().map(KitchenOrderResponse::getId).toList());
+        assertEquals(1_000, shared.polledAt());
+    }
+}
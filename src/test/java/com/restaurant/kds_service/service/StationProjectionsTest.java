@@ -0,0 +1,98 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.restaurant.kds_service.service.TestOrders.item;
+import static com.restaurant.kds_service.service.TestOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for item-to-station routing and the per-station projections
+ */
+class StationProjectionsTest {
+
+    private final List<StationProjections> listeners = new ArrayList<>();
+    private StationRouting routing;
+    private ActiveOrderStore store;
+    private StationProjections projections;
+
+    private static List<Long> ids(OrderSnapshot snapshot) {
+        return snapshot.getOrders().stream().map(KitchenOrderResponse::getId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "kitchen.stations.grill.item-ids", "10, 11",
+                "kitchen.stations.grill.item-names", "*burger*, *steak*",
+                "kitchen.stations.fryer.item-names", "*fries*, wings?",
+                "kitchen.stations.cold.item-names", "*salad*")));
+        routing = StationRouting.bind(environment);
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        store = new ActiveOrderStore(event -> listeners.forEach(
+                listener -> listener.onActiveOrdersChanged((ActiveOrdersChangedEvent) event)),
+                jsonMapper, Set.of("CREATED", "PREPARING"), Runnable::run);
+        projections = new StationProjections(store, jsonMapper, routing);
+        listeners.add(projections);
+
+        List<KitchenOrderResponse> orders = List.of(
+                order(1, 5, "CREATED", 5, item(10, "Ribeye"), item(20, "Fries")),
+                order(2, 5, "CREATED", 1, item(30, "Caesar Salad")),
+                order(3, 5, "CREATED", 2, item(40, "Cheese Burger")));
+        store.apply(store.diff(orders), ActiveOrdersChangedEvent.Source.POLL, store.currentSequence());
+    }
+
+    @Test
+    void testRouting_ItemIdBeforeNamePatterns() {
+        assertEquals(Set.of("grill", "fryer", "cold"), routing.stations());
+        assertEquals("grill", routing.stationOf(item(10, "Side Salad")));
+        assertEquals("grill", routing.stationOf(item(99, "Double BURGER")));
+        assertEquals("fryer", routing.stationOf(item(99, "Wings6")));
+        assertNull(routing.stationOf(item(99, "Wings12")));
+        assertNull(routing.stationOf(item(99, "Soda")));
+        assertTrue(StationRouting.bind(new StandardEnvironment()).isEmpty());
+    }
+
+    @Test
+    void testProjections_OnlyStationItemsInDisplayOrder() {
+        assertEquals(List.of(3L, 1L), ids(projections.getSnapshot("grill")));
+        assertEquals(List.of(1L), ids(projections.getSnapshot("Fryer")));
+        assertEquals(List.of(2L), ids(projections.getSnapshot("cold")));
+        assertNull(projections.getSnapshot("pastry"));
+
+        KitchenOrderResponse grillOrder = projections.getSnapshot("grill").getOrders().get(1);
+        assertEquals(List.of(item(10, "Ribeye")), grillOrder.getItems());
+        assertEquals("CREATED", grillOrder.getStatus());
+        // An order prepared entirely at one station is shared, not copied
+        assertSame(store.get(3L), projections.getSnapshot("grill").getOrders().get(0));
+    }
+
+    @Test
+    void testProjections_UpdatedIncrementallyForTouchedStationsOnly() {
+        long coldVersion = projections.getSnapshot("cold").getVersion();
+        long grillVersion = projections.getSnapshot("grill").getVersion();
+
+        store.writeThrough(order(1, 5, "PREPARING", 5, item(10, "Ribeye"), item(20, "Fries")));
+
+        assertEquals(coldVersion, projections.getSnapshot("cold").getVersion());
+        assertEquals(grillVersion + 1, projections.getSnapshot("grill").getVersion());
+        assertEquals("PREPARING", projections.getSnapshot("fryer").getOrders().get(0).getStatus());
+
+        store.writeThrough(order(1, 5, "READY", 5, item(10, "Ribeye"), item(20, "Fries")));
+
+        assertEquals(List.of(3L), ids(projections.getSnapshot("grill")));
+        assertEquals(0, projections.getSnapshot("fryer").size());
+    }
+}
@@ -0,0 +1,46 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order fixtures shared by the service tests
+ */
+final class TestOrders {
+
+    static final LocalDateTime BASE = LocalDateTime.of(2026, 2, 12, 18, 0);
+
+    private TestOrders() {
+    }
+
+    /**
+     * Order without items for table 10, created id minutes after BASE
+     * so display order follows the id
+     */
+    static KitchenOrderResponse order(long id, String status) {
+        return order(id, 10, status, (int) id);
+    }
+
+    /**
+     * Order for a table, created minute minutes after BASE
+     */
+    static KitchenOrderResponse order(long id, long tableId, String status, int minute,
+                                      KitchenOrderResponse.OrderItem... items) {
+        return new KitchenOrderResponse(id, tableId, 1L, status, BigDecimal.ONE, BASE.plusMinutes(minute),
+                List.of(items));
+    }
+
+    /**
+     * One of a menu item; the line id is derived from the menu item id
+     */
+    static KitchenOrderResponse.OrderItem item(long itemId, String name) {
+        return item(itemId, name, 1);
+    }
+
+    static KitchenOrderResponse.OrderItem item(long itemId, String name, int quantity) {
+        return new KitchenOrderResponse.OrderItem(itemId * 100, itemId, name, quantity, BigDecimal.ONE);
+    }
+}